@@ -1,11 +1,11 @@
 package com.stefanolupo.ndngame.backend.chronosynced;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.stefanolupo.ndngame.backend.ndn.FaceFactory;
 import net.named_data.jndn.*;
 import net.named_data.jndn.encoding.EncodingException;
 import net.named_data.jndn.security.KeyChain;
 import net.named_data.jndn.security.SecurityException;
-import net.named_data.jndn.security.pib.PibImpl;
 import net.named_data.jndn.sync.ChronoSync2013;
 import net.named_data.jndn.util.Blob;
 import org.slf4j.Logger;
@@ -13,15 +13,20 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public abstract class ChronoSynced implements
         OnData,
         OnTimeout,
+        OnNetworkNack,
         OnInterestCallback,
         ChronoSync2013.OnInitialized,
         ChronoSync2013.OnReceivedSyncState
@@ -31,11 +36,13 @@ public abstract class ChronoSynced implements
     private static final Long DEFAULT_FACE_POLL_TIME_MS = 1000L;
     private static final Long DEFAULT_FACE_POLL_INITIAL_WAIT_MS = 5000L;
     private static final Long DEFAULT_SYNC_LIFETIME_MS = 30000L;
+    private static final long MAX_CONGESTION_RETRY_DELAY_MS = 1000;
 
     private final ChronoSync2013 chronoSync;
     private final Face face;
     private final KeyChain keyChain;
     private final Name certificateName;
+    private final ScheduledExecutorService faceExecutor;
 
     private final long session;
     private final Name broadcastPrefix;
@@ -43,16 +50,17 @@ public abstract class ChronoSynced implements
     private final Statistics statistics;
 
     public ChronoSynced(Name broadcastPrefix,
-                        Name dataListenPrefix) {
+                        Name dataListenPrefix,
+                        FaceFactory faceFactory) {
         this.broadcastPrefix = broadcastPrefix;
         this.dataListenPrefix = dataListenPrefix;
         session = System.currentTimeMillis() / 1000;
         statistics = new Statistics();
 
         try {
-            keyChain = new KeyChain();
+            keyChain = faceFactory.getKeyChain();
             certificateName = keyChain.getDefaultCertificateName();
-            face = new Face();
+            face = faceFactory.createFace();
             face.setCommandSigningInfo(keyChain, certificateName);
 
             chronoSync = new ChronoSync2013(
@@ -72,12 +80,12 @@ public abstract class ChronoSynced implements
             ThreadFactory threadFactory = new ThreadFactoryBuilder()
                     .setNameFormat("cs-" + dataListenPrefix.toUri() + "-%d")
                     .build();
-            Executors.newSingleThreadScheduledExecutor(threadFactory)
-                    .scheduleAtFixedRate(this::pollFace,
+            faceExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            faceExecutor.scheduleAtFixedRate(this::pollFace,
                             DEFAULT_FACE_POLL_INITIAL_WAIT_MS,
                             DEFAULT_FACE_POLL_TIME_MS,
                             TimeUnit.MILLISECONDS);
-        } catch (SecurityException | KeyChain.Error | PibImpl.Error | IOException e) {
+        } catch (SecurityException | IOException e) {
             String errorMessage = String.format("Could not initialize chrono synced map (Broadcast: %s, Listen: %s)",
                     broadcastPrefix, dataListenPrefix);
             throw new RuntimeException(errorMessage, e);
@@ -118,6 +126,24 @@ public abstract class ChronoSynced implements
         LOG.warn("Timeout for interest: {}", interest.toUri());
     }
 
+    @Override
+    public void onNetworkNack(Interest interest, NetworkNack networkNack) {
+        statistics.recordNack(networkNack.getReason());
+
+        switch (networkNack.getReason()) {
+            case NO_ROUTE:
+                // The player whose state this is has gone, sync will tell us if they come back
+                LOG.debug("No route for {}, dropping it", interest.toUri());
+                break;
+            case CONGESTION:
+                long delayMs = ThreadLocalRandom.current().nextLong(MAX_CONGESTION_RETRY_DELAY_MS);
+                faceExecutor.schedule(() -> expressInterestSafe(interest), delayMs, TimeUnit.MILLISECONDS);
+                break;
+            default:
+                LOG.warn("Nack ({}) for interest: {}", networkNack.getReason(), interest.toUri());
+        }
+    }
+
     @Override
     public void onReceivedSyncState(List syncStates, boolean isRecovery) {
         statistics.numSyncs ++;
@@ -139,7 +165,7 @@ public abstract class ChronoSynced implements
 
     private void expressInterestSafe(Interest i) {
         try {
-            face.expressInterest(i, this, this);
+            face.expressInterest(i, this, this, this);
         } catch (IOException e) {
             LOG.error("Unable to express interest for {}", i.toUri(), e);
         }
@@ -190,16 +216,22 @@ public abstract class ChronoSynced implements
         long numSyncs = 0;
         long numRecoveries = 0;
         long totalNumSyncStates = 0;
+        final Map<NetworkNack.Reason, Long> nacksByReason = new EnumMap<>(NetworkNack.Reason.class);
 
         Statistics() {
             //Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(this::printStats, 7L, 15L, TimeUnit.SECONDS);
         }
 
-        void printStats() {
-            LOG.debug("{} sync updates ({}% recovery) - average num sync states = {}",
+        synchronized void recordNack(NetworkNack.Reason reason) {
+            nacksByReason.merge(reason, 1L, Long::sum);
+        }
+
+        synchronized void printStats() {
+            LOG.debug("{} sync updates ({}% recovery) - average num sync states = {} - nacks = {}",
                     numSyncs,
                     (numRecoveries + 0.0) / numSyncs,
-                    (totalNumSyncStates + 0.0) / numSyncs
+                    (totalNumSyncStates + 0.0) / numSyncs,
+                    nacksByReason
             );
         }
     }
@@ -4,6 +4,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.Maps;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.hubspot.liveconfig.resolver.Resolver;
+import com.stefanolupo.ndngame.backend.ndn.FaceFactory;
 import com.stefanolupo.ndngame.config.LocalConfig;
 import com.stefanolupo.ndngame.names.ConfigName;
 import com.stefanolupo.ndngame.protos.ConfigMap;
@@ -24,9 +25,10 @@ public class ConfigManager extends ChronoSynced implements Resolver {
     private final Map<String, String> configMap;
 //    private final ScheduledExecutorService executor;
 
-    public ConfigManager(LocalConfig localConfig, Properties initialProperties) {
+    public ConfigManager(LocalConfig localConfig, Properties initialProperties, FaceFactory faceFactory) {
         super(ConfigName.getBroadcastName(localConfig.getGameId()),
-                new ConfigName(localConfig.getGameId(), localConfig.getPlayerName()).getAsPrefix());
+                new ConfigName(localConfig.getGameId(), localConfig.getPlayerName()).getAsPrefix(),
+                faceFactory);
         configMap = new HashMap<>();
         configMap.putAll(Maps.fromProperties(initialProperties));
 
@@ -4,6 +4,7 @@ import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.stefanolupo.ndngame.backend.ndn.FaceFactory;
 import com.stefanolupo.ndngame.config.LocalConfig;
 import com.stefanolupo.ndngame.names.DiscoveryName;
 import com.stefanolupo.ndngame.protos.Player;
@@ -30,8 +31,9 @@ public class DiscoveryManager extends ChronoSynced {
 
     @Inject
     public DiscoveryManager(LocalConfig localConfig,
-                            Set<OnPlayersDiscovered> discoveryCallbacks) {
-        super(buildBroadcastPrefix(localConfig), buildDataPrefix(localConfig));
+                            Set<OnPlayersDiscovered> discoveryCallbacks,
+                            FaceFactory faceFactory) {
+        super(buildBroadcastPrefix(localConfig), buildDataPrefix(localConfig), faceFactory);
         this.localPlayer = Player.newBuilder()
                 .setName(localConfig.getPlayerName())
                 .build();
@@ -0,0 +1,19 @@
+package com.stefanolupo.ndngame.backend.executors;
+
+/**
+ * How the backend maps its faces and publishing work onto threads
+ */
+public enum ExecutionMode {
+
+    /**
+     * Every face gets its own scheduled thread pool
+     * Every publisher gets its own scheduler thread and data is sent on a fixed pool shared by all publishers
+     */
+    THREAD_PER_FACE,
+
+    /**
+     * All faces and publisher schedulers share a small fixed pool of event loop threads
+     * Data is sent on virtual threads when available (JDK 21+), otherwise on the event loop
+     */
+    SHARED_EVENT_LOOP
+}
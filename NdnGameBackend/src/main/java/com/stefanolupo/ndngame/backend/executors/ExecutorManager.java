@@ -0,0 +1,103 @@
+package com.stefanolupo.ndngame.backend.executors;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.hubspot.liveconfig.value.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Hands out the executors used by faces and publishers according to the configured {@link ExecutionMode}
+ */
+@Singleton
+public class ExecutorManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutorManager.class);
+
+    private final ExecutionMode executionMode;
+    private final Supplier<ScheduledExecutorService> eventLoopSupplier;
+    private final Supplier<ExecutorService> virtualThreadExecutorSupplier;
+
+    @Inject
+    public ExecutorManager(@Named("facemanager.execution.mode") Value<String> executionMode,
+                           @Named("facemanager.event.loop.threads") Value<Integer> eventLoopThreads) {
+        this.executionMode = ExecutionMode.valueOf(executionMode.get().trim().toUpperCase());
+        this.eventLoopSupplier = Suppliers.memoize(() -> buildEventLoop(eventLoopThreads.get()));
+        this.virtualThreadExecutorSupplier = Suppliers.memoize(this::buildVirtualThreadExecutor);
+        LOG.info("Using execution mode {}", this.executionMode);
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Get the executor a face should run its transport and callbacks on
+     * @param name unique name of the face, used to name its threads
+     * @param numThreads number of threads the face should get in THREAD_PER_FACE mode
+     */
+    public ScheduledExecutorService getFaceExecutor(String name, int numThreads) {
+        if (executionMode == ExecutionMode.SHARED_EVENT_LOOP) {
+            return eventLoopSupplier.get();
+        }
+
+        return Executors.newScheduledThreadPool(numThreads, namedThreadFactory("fm-" + name + "-%d"));
+    }
+
+    /**
+     * Get the executor used to schedule a publisher's periodic work
+     */
+    public ScheduledExecutorService getScheduler(String name) {
+        if (executionMode == ExecutionMode.SHARED_EVENT_LOOP) {
+            return eventLoopSupplier.get();
+        }
+
+        return Executors.newSingleThreadScheduledExecutor(namedThreadFactory(name + "-%d"));
+    }
+
+    /**
+     * Get the executor publishers' data should be sent on
+     * @param numThreads number of threads the executor should have in THREAD_PER_FACE mode
+     */
+    public ExecutorService getSender(String name, int numThreads) {
+        if (executionMode == ExecutionMode.SHARED_EVENT_LOOP) {
+            return virtualThreadExecutorSupplier.get();
+        }
+
+        return Executors.newFixedThreadPool(numThreads, namedThreadFactory(name + "-%d"));
+    }
+
+    private ScheduledExecutorService buildEventLoop(int numThreads) {
+        LOG.info("Starting shared event loop with {} threads", numThreads);
+        return Executors.newScheduledThreadPool(numThreads, namedThreadFactory("event-loop-%d"));
+    }
+
+    /**
+     * Virtual threads are only available from JDK 21 and we build against Java 8, so look them up reflectively
+     */
+    private ExecutorService buildVirtualThreadExecutor() {
+        try {
+            ExecutorService executorService = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            LOG.info("Sending data on virtual threads");
+            return executorService;
+        } catch (ReflectiveOperationException e) {
+            LOG.info("Virtual threads are unavailable, sending data on the shared event loop");
+            return eventLoopSupplier.get();
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory(String nameFormat) {
+        return new ThreadFactoryBuilder().setNameFormat(nameFormat).build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.stefanolupo.ndngame.backend.executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cheaply schedules large numbers of short lived timeouts (e.g. one per pending interest)
+ * Timeouts are hashed by deadline into a wheel of buckets and a single worker thread expires one bucket per tick,
+ * so adding and cancelling are O(1) at the cost of timeouts only being accurate to a tick
+ * Tasks run on the worker thread so must be quick, hand anything heavier off to an executor
+ */
+public class HashedWheelTimer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    /**
+     * Handle to a scheduled task
+     */
+    public interface Timeout {
+        /**
+         * @return true if the task was cancelled before it ran
+         */
+        boolean cancel();
+    }
+
+    private final long tickNanos;
+    private final List<LinkedList<WheelTimeout>> wheel;
+    private final Queue<WheelTimeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final long startTime;
+    private final Thread worker;
+
+    // Only touched by the worker
+    private long tick = 0;
+
+    public HashedWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new LinkedList<>());
+        }
+
+        this.startTime = System.nanoTime();
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.start();
+    }
+
+    /**
+     * Run task once delay has elapsed, rounded up to the next tick
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        WheelTimeout timeout = new WheelTimeout(task, System.nanoTime() + unit.toNanos(delay));
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        worker.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                waitForNextTick();
+                addNewTimeouts();
+                expireTimeouts(wheel.get((int) (tick % wheel.size())));
+                tick++;
+            }
+        } catch (InterruptedException e) {
+            LOG.debug("Timer stopped");
+        }
+    }
+
+    private void waitForNextTick() throws InterruptedException {
+        long deadline = startTime + (tick + 1) * tickNanos;
+        long sleepNanos;
+        while ((sleepNanos = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        }
+    }
+
+    private void addNewTimeouts() {
+        WheelTimeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            // Anything already overdue goes in the bucket about to be expired
+            long deadlineTick = Math.max(tick, (timeout.deadline - startTime) / tickNanos);
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.size();
+            wheel.get((int) (deadlineTick % wheel.size())).add(timeout);
+        }
+    }
+
+    private void expireTimeouts(LinkedList<WheelTimeout> bucket) {
+        for (Iterator<WheelTimeout> it = bucket.iterator(); it.hasNext();) {
+            WheelTimeout timeout = it.next();
+            if (timeout.isCancelled()) {
+                it.remove();
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                it.remove();
+                timeout.expire();
+            }
+        }
+    }
+
+    private static final class WheelTimeout implements Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // Only touched by the worker
+        private long remainingRounds;
+
+        WheelTimeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        void expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOG.error("Timer task threw", t);
+            }
+        }
+    }
+}
@@ -12,12 +12,16 @@ import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.hubspot.liveconfig.LiveConfig;
 import com.hubspot.liveconfig.LiveConfigModule;
+import com.hubspot.liveconfig.value.Value;
 import com.stefanolupo.ndngame.backend.annotations.BackendMetrics;
 import com.stefanolupo.ndngame.backend.annotations.LogScheduleExecutor;
 import com.stefanolupo.ndngame.backend.chronosynced.ConfigManager;
 import com.stefanolupo.ndngame.backend.chronosynced.DiscoveryManager;
 import com.stefanolupo.ndngame.backend.chronosynced.OnPlayersDiscovered;
+import com.stefanolupo.ndngame.backend.executors.HashedWheelTimer;
 import com.stefanolupo.ndngame.backend.ndn.BasePublisherFactory;
+import com.stefanolupo.ndngame.backend.ndn.FaceFactory;
+import com.stefanolupo.ndngame.backend.ndn.NfdFaceFactory;
 import com.stefanolupo.ndngame.backend.publisher.BasePublisher;
 import com.stefanolupo.ndngame.backend.statistics.Histogram;
 import com.stefanolupo.ndngame.backend.statistics.HistogramFactory;
@@ -25,6 +29,10 @@ import com.stefanolupo.ndngame.backend.subscriber.BlockSubscriber;
 import com.stefanolupo.ndngame.backend.subscriber.PlayerStatusSubscriber;
 import com.stefanolupo.ndngame.backend.subscriber.ProjectileSubscriber;
 import com.stefanolupo.ndngame.config.LocalConfig;
+import com.stefanolupo.ndngame.deadreckoning.DeadReckoningPredictor;
+import com.stefanolupo.ndngame.deadreckoning.LinearPredictor;
+import com.stefanolupo.ndngame.deadreckoning.QuadraticPredictor;
+import com.stefanolupo.ndngame.deadreckoning.VelocityBlendedPredictor;
 import net.named_data.jndn.security.KeyChain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,9 +66,19 @@ public class BackendModule extends AbstractModule {
     );
 
     private final LocalConfig localConfig;
+    private final FaceFactory faceFactory;
 
     public BackendModule(LocalConfig localConfig) {
+        this(localConfig, new NfdFaceFactory());
+    }
+
+    /**
+     * Allows the faces to be connected to something other than the local NFD
+     * e.g. an InMemoryForwarder shared by many simulated players in the same JVM
+     */
+    public BackendModule(LocalConfig localConfig, FaceFactory faceFactory) {
         this.localConfig = localConfig;
+        this.faceFactory = faceFactory;
     }
 
     @Override
@@ -69,6 +87,7 @@ public class BackendModule extends AbstractModule {
                 Multibinder.newSetBinder(binder(), OnPlayersDiscovered.class);
         PLAYER_DISCOVERY_CALLBACKS.forEach(pdc -> onDiscoveryBinder.addBinding().to(pdc));
 
+        bind(FaceFactory.class).toInstance(faceFactory);
         bind(DiscoveryManager.class).asEagerSingleton();
         bind(HistogramValuesWriter.class).asEagerSingleton();
 
@@ -83,7 +102,7 @@ public class BackendModule extends AbstractModule {
         Properties properties = loadInitialProperties();
         LiveConfig liveConfig = LiveConfig.builder()
                 .usingProperties(properties)
-                .usingResolver(new ConfigManager(localConfig, properties))
+                .usingResolver(new ConfigManager(localConfig, properties, faceFactory))
                 .build();
         install(new LiveConfigModule(liveConfig));
     }
@@ -139,11 +158,7 @@ public class BackendModule extends AbstractModule {
     @Provides
     @Singleton
     KeyChain providesSingletonKeyChain() {
-        try {
-            return new KeyChain();
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to obtain keychain reference", e);
-        }
+        return faceFactory.getKeyChain();
     }
 
     @Provides
@@ -155,6 +170,34 @@ public class BackendModule extends AbstractModule {
         return Executors.newScheduledThreadPool(1, namedThreadFactory);
     }
 
+    @Provides
+    @Singleton
+    DeadReckoningPredictor providesDeadReckoningPredictor(@Named("dead.reckoning.predictor") Value<String> predictor,
+                                                          @Named("dead.reckoning.blend.ticks") Value<Float> blendTicks) {
+        String name = predictor.get().trim().toLowerCase();
+        switch (name) {
+            case LinearPredictor.NAME:
+                return new LinearPredictor();
+            case QuadraticPredictor.NAME:
+                return new QuadraticPredictor();
+            case VelocityBlendedPredictor.NAME:
+                return new VelocityBlendedPredictor(blendTicks.get());
+            default:
+                throw new IllegalArgumentException("Unknown dead reckoning predictor " + name);
+        }
+    }
+
+    @Provides
+    @Singleton
+    HashedWheelTimer providesHashedWheelTimer(@Named("timer.tick.ms") Value<Long> tickMs,
+                                              @Named("timer.wheel.size") Value<Integer> wheelSize) {
+        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("wheel-timer-%d")
+                .setDaemon(true)
+                .build();
+        return new HashedWheelTimer(namedThreadFactory, tickMs.get(), TimeUnit.MILLISECONDS, wheelSize.get());
+    }
+
 
     private Properties loadInitialProperties() {
         Properties properties = new Properties();
@@ -0,0 +1,25 @@
+package com.stefanolupo.ndngame.backend.ndn;
+
+import net.named_data.jndn.Face;
+import net.named_data.jndn.security.KeyChain;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Builds the faces (and the KeyChain used to sign their commands) that connect the backend to a forwarder
+ * This allows the backend to be pointed at a real NFD or at an in process forwarder
+ */
+public interface FaceFactory {
+
+    /**
+     * Build an asynchronous, load tracking face whose callbacks are run on executorService
+     */
+    LoadTrackingFace createThreadPoolFace(ScheduledExecutorService executorService);
+
+    /**
+     * Build a synchronous face that must be driven by calling processEvents()
+     */
+    Face createFace();
+
+    KeyChain getKeyChain();
+}
@@ -1,26 +1,28 @@
 package com.stefanolupo.ndngame.backend.ndn;
 
-import com.google.common.collect.Iterables;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
-import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.hubspot.liveconfig.value.Value;
+import com.stefanolupo.ndngame.backend.annotations.BackendMetrics;
+import com.stefanolupo.ndngame.backend.executors.ExecutorManager;
+import com.stefanolupo.ndngame.backend.executors.HashedWheelTimer;
+import com.stefanolupo.ndngame.metrics.MetricNames;
 import net.named_data.jndn.*;
 import net.named_data.jndn.security.KeyChain;
 import net.named_data.jndn.security.SecurityException;
-import net.named_data.jndn.transport.AsyncTcpTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.Iterator;
+import java.util.EnumMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 @Singleton
 public class FaceManager {
@@ -28,29 +30,40 @@ public class FaceManager {
     private static final Logger LOG = LoggerFactory.getLogger(FaceManager.class);
     private static final int MAX_REGISTER_PREFIX_ATTEMPTS = 5;
 
-    private final Iterator<ThreadPoolFace> pubFaceIt;
-    private final Iterator<ThreadPoolFace> subFaceIt;
+    private final LeastLoadedFaceSelector pubFaceSelector;
+    private final LeastLoadedFaceSelector subFaceSelector;
 
-    private final Provider<KeyChain> keyChainProvider;
+    private final FaceFactory faceFactory;
+    private final ExecutorManager executorManager;
+    private final HashedWheelTimer timer;
+    private final Map<NetworkNack.Reason, Counter> nackCounters = new EnumMap<>(NetworkNack.Reason.class);
 
     @Inject
-    public FaceManager(Provider<KeyChain> keyChainProvider,
+    public FaceManager(FaceFactory faceFactory,
+                       ExecutorManager executorManager,
+                       HashedWheelTimer timer,
+                       @BackendMetrics MetricRegistry metrics,
                        @Named("facemanager.max.num.pub.faces") Value<Integer> numPubFaces,
                        @Named("facemanager.max.num.sub.faces") Value<Integer> numSubFaces,
                        @Named("facemanager.num.pub.threads.per.face") Value<Integer> pubThreadsPerFace,
                        @Named("facemanager.num.sub.threads.per.face") Value<Integer> subThreadsPerFace) {
 
-        this.keyChainProvider = keyChainProvider;
+        this.faceFactory = faceFactory;
+        this.executorManager = executorManager;
+        this.timer = timer;
+        for (NetworkNack.Reason reason : NetworkNack.Reason.values()) {
+            nackCounters.put(reason, metrics.counter(MetricNames.networkNacks(reason)));
+        }
 
-        Set<ThreadPoolFace> pubFaces = buildFaces(numPubFaces.get(), pubThreadsPerFace.get(), "pub");
-        Set<ThreadPoolFace> subFaces = buildFaces(numSubFaces.get(), subThreadsPerFace.get(), "sub");
+        Set<LoadTrackingFace> pubFaces = buildFaces(numPubFaces.get(), pubThreadsPerFace.get(), "pub");
+        Set<LoadTrackingFace> subFaces = buildFaces(numSubFaces.get(), subThreadsPerFace.get(), "sub");
 
-        pubFaceIt = Iterables.cycle(pubFaces).iterator();
-        subFaceIt = Iterables.cycle(subFaces).iterator();
+        pubFaceSelector = new LeastLoadedFaceSelector(pubFaces);
+        subFaceSelector = new LeastLoadedFaceSelector(subFaces);
     }
 
     public void registerBasicPrefix(Name prefix, OnInterestCallback onInterestCallback) {
-        ThreadPoolFace face = getNextPubFace();
+        LoadTrackingFace face = pubFaceSelector.next();
         RegisterPrefixAttempt prefixAttempt =
                 new RegisterPrefixAttempt(face, prefix, onInterestCallback);
         doRegisterPrefix(face, prefixAttempt);
@@ -61,8 +74,49 @@ public class FaceManager {
     }
 
     public void expressInterestSafe(Interest interest, OnData onData, OnTimeout onTimeout) {
+        expressInterestSafe(subFaceSelector.next(), interest, onData, onTimeout, null);
+    }
+
+    /**
+     * Express an interest which is part of a longer lived stream (e.g. a subscription)
+     * All interests for the same streamName are sent over the same face
+     */
+    public void expressInterestSafe(Interest interest, OnData onData, OnTimeout onTimeout, Name streamName) {
+        expressInterestSafe(subFaceSelector.forStream(streamName), interest, onData, onTimeout, null);
+    }
+
+    /**
+     * As above but NACKs from the network are passed to onNetworkNack (and counted by reason)
+     * instead of surfacing as a timeout once the interest's lifetime runs out
+     */
+    public void expressInterestSafe(Interest interest,
+                                    OnData onData,
+                                    OnTimeout onTimeout,
+                                    OnNetworkNack onNetworkNack,
+                                    Name streamName) {
+        OnNetworkNack countingOnNetworkNack = (nackedInterest, networkNack) -> {
+            nackCounters.get(networkNack.getReason()).inc();
+            onNetworkNack.onNetworkNack(nackedInterest, networkNack);
+        };
+        expressInterestSafe(subFaceSelector.forStream(streamName), interest, onData, onTimeout, countingOnNetworkNack);
+    }
+
+    /**
+     * Run the task after delayMs on the timer shared by all subscriptions
+     * Used to pace a stream's interests without blocking or scheduling on a face thread
+     * The task runs on the timer's thread so must be quick, e.g. expressing an interest
+     */
+    public void callLater(long delayMs, Runnable task) {
+        timer.newTimeout(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void expressInterestSafe(LoadTrackingFace face,
+                                     Interest interest,
+                                     OnData onData,
+                                     OnTimeout onTimeout,
+                                     OnNetworkNack onNetworkNack) {
         try {
-            getNextSubFace().expressInterest(interest, onData, onTimeout);
+            face.expressInterest(interest, onData, onTimeout, onNetworkNack);
         } catch (IOException e) {
             LOG.error("Unable to express interest for {}", interest.toUri());
         }
@@ -76,39 +130,22 @@ public class FaceManager {
         }
     }
 
-    private ThreadPoolFace getNextPubFace() {
-        synchronized (pubFaceIt) {
-            return pubFaceIt.next();
-        }
-    }
-
-    private ThreadPoolFace getNextSubFace() {
-        synchronized (subFaceIt) {
-            return subFaceIt.next();
-        }
-    }
-
-    private Set<ThreadPoolFace> buildFaces(int numFaces, int numThreads, String threadName) {
+    private Set<LoadTrackingFace> buildFaces(int numFaces, int numThreads, String threadName) {
+        KeyChain keyChain = faceFactory.getKeyChain();
         Name certificateName;
         try {
-            certificateName = keyChainProvider.get().getDefaultCertificateName();
+            certificateName = keyChain.getDefaultCertificateName();
         } catch (Exception e) {
             throw new RuntimeException("Unable to initialize FaceManager", e);
         }
 
-        Set<ThreadPoolFace> faces = new LinkedHashSet<>();
+        Set<LoadTrackingFace> faces = new LinkedHashSet<>();
 
         for (int i = 0; i < numFaces; i++) {
-            ThreadFactory namedThreadFactory =
-                    new ThreadFactoryBuilder().setNameFormat("fm-" + threadName + "-" + i + "-%d").build();
             ScheduledExecutorService executorService =
-                    Executors.newScheduledThreadPool(numThreads, namedThreadFactory);
-            ThreadPoolFace face = new ThreadPoolFace(
-                    executorService,
-                    new AsyncTcpTransport(executorService),
-                    new AsyncTcpTransport.ConnectionInfo("localhost")
-            );
-            face.setCommandSigningInfo(keyChainProvider.get(), certificateName);
+                    executorManager.getFaceExecutor(threadName + "-" + i, numThreads);
+            LoadTrackingFace face = faceFactory.createThreadPoolFace(executorService);
+            face.setCommandSigningInfo(keyChain, certificateName);
             faces.add(face);
         }
 
@@ -0,0 +1,56 @@
+package com.stefanolupo.ndngame.backend.ndn;
+
+import net.named_data.jndn.Name;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock free selection of the least loaded of a set of faces
+ * Each scan starts at a rotating offset so ties are spread across all of the faces
+ * Streams can be pinned to a face so all of their interests go out over the same connection
+ */
+class LeastLoadedFaceSelector {
+
+    private final LoadTrackingFace[] faces;
+    private final AtomicInteger nextStartIndex = new AtomicInteger();
+    private final ConcurrentMap<Name, LoadTrackingFace> faceByStream = new ConcurrentHashMap<>();
+
+    LeastLoadedFaceSelector(Collection<LoadTrackingFace> faces) {
+        if (faces.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one face to select from");
+        }
+        this.faces = faces.toArray(new LoadTrackingFace[0]);
+    }
+
+    LoadTrackingFace next() {
+        int startIndex = Math.floorMod(nextStartIndex.getAndIncrement(), faces.length);
+        LoadTrackingFace leastLoaded = faces[startIndex];
+        int leastLoad = leastLoaded.getLoad();
+
+        for (int i = 1; i < faces.length && leastLoad > 0; i++) {
+            LoadTrackingFace face = faces[(startIndex + i) % faces.length];
+            int load = face.getLoad();
+            if (load < leastLoad) {
+                leastLoaded = face;
+                leastLoad = load;
+            }
+        }
+
+        return leastLoaded;
+    }
+
+    /**
+     * Get the face the stream is pinned to, pinning it to the least loaded face on first use
+     */
+    LoadTrackingFace forStream(Name streamName) {
+        LoadTrackingFace face = faceByStream.get(streamName);
+        if (face != null) {
+            return face;
+        }
+
+        return faceByStream.computeIfAbsent(streamName, n -> next());
+    }
+}
@@ -0,0 +1,119 @@
+package com.stefanolupo.ndngame.backend.ndn;
+
+import net.named_data.jndn.*;
+import net.named_data.jndn.encoding.WireFormat;
+import net.named_data.jndn.transport.Transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ThreadPoolFace which keeps track of how busy it is
+ * Load is the number of interests awaiting data / timeout / nack plus the number of writes in progress
+ */
+public class LoadTrackingFace extends ThreadPoolFace {
+
+    private final AtomicInteger pendingInterests = new AtomicInteger();
+    private final AtomicInteger queuedWrites = new AtomicInteger();
+
+    public LoadTrackingFace(ScheduledExecutorService executorService,
+                            Transport transport,
+                            Transport.ConnectionInfo connectionInfo) {
+        super(executorService, transport, connectionInfo);
+    }
+
+    public int getLoad() {
+        return pendingInterests.get() + queuedWrites.get();
+    }
+
+    public int getPendingInterests() {
+        return pendingInterests.get();
+    }
+
+    public int getQueuedWrites() {
+        return queuedWrites.get();
+    }
+
+    @Override
+    public long expressInterest(Interest interest,
+                                OnData onData,
+                                OnTimeout onTimeout,
+                                OnNetworkNack onNetworkNack,
+                                WireFormat wireFormat) throws IOException {
+        PendingInterest pendingInterest = new PendingInterest(onData, onTimeout, onNetworkNack);
+        pendingInterests.incrementAndGet();
+        try {
+            // Without a nack callback jNDN leaves nacked interests to time out, so keep that behaviour
+            OnNetworkNack wrappedOnNetworkNack = onNetworkNack == null ? null : pendingInterest;
+            return super.expressInterest(interest, pendingInterest, pendingInterest, wrappedOnNetworkNack, wireFormat);
+        } catch (IOException | RuntimeException e) {
+            pendingInterest.complete();
+            throw e;
+        }
+    }
+
+    @Override
+    public void putData(Data data, WireFormat wireFormat) throws IOException {
+        queuedWrites.incrementAndGet();
+        try {
+            super.putData(data, wireFormat);
+        } finally {
+            queuedWrites.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void send(ByteBuffer encoding) throws IOException {
+        queuedWrites.incrementAndGet();
+        try {
+            super.send(encoding);
+        } finally {
+            queuedWrites.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wraps the callbacks of an expressed interest so the pending count is decremented exactly once
+     */
+    private class PendingInterest implements OnData, OnTimeout, OnNetworkNack {
+        private final OnData onData;
+        private final OnTimeout onTimeout;
+        private final OnNetworkNack onNetworkNack;
+        private final AtomicBoolean isComplete = new AtomicBoolean(false);
+
+        PendingInterest(OnData onData, OnTimeout onTimeout, OnNetworkNack onNetworkNack) {
+            this.onData = onData;
+            this.onTimeout = onTimeout;
+            this.onNetworkNack = onNetworkNack;
+        }
+
+        void complete() {
+            if (isComplete.compareAndSet(false, true)) {
+                pendingInterests.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void onData(Interest interest, Data data) {
+            complete();
+            onData.onData(interest, data);
+        }
+
+        @Override
+        public void onTimeout(Interest interest) {
+            complete();
+            if (onTimeout != null) {
+                onTimeout.onTimeout(interest);
+            }
+        }
+
+        @Override
+        public void onNetworkNack(Interest interest, NetworkNack networkNack) {
+            complete();
+            onNetworkNack.onNetworkNack(interest, networkNack);
+        }
+    }
+}
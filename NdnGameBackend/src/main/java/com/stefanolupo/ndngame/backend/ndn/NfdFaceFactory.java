@@ -0,0 +1,46 @@
+package com.stefanolupo.ndngame.backend.ndn;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.security.KeyChain;
+import net.named_data.jndn.transport.AsyncTcpTransport;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Connects faces to the NFD instance running on localhost
+ */
+public class NfdFaceFactory implements FaceFactory {
+
+    private static final String NFD_HOST = "localhost";
+
+    private final Supplier<KeyChain> keyChainSupplier = Suppliers.memoize(NfdFaceFactory::buildKeyChain);
+
+    @Override
+    public LoadTrackingFace createThreadPoolFace(ScheduledExecutorService executorService) {
+        return new LoadTrackingFace(
+                executorService,
+                new AsyncTcpTransport(executorService),
+                new AsyncTcpTransport.ConnectionInfo(NFD_HOST)
+        );
+    }
+
+    @Override
+    public Face createFace() {
+        return new Face();
+    }
+
+    @Override
+    public KeyChain getKeyChain() {
+        return keyChainSupplier.get();
+    }
+
+    private static KeyChain buildKeyChain() {
+        try {
+            return new KeyChain();
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to obtain keychain reference", e);
+        }
+    }
+}
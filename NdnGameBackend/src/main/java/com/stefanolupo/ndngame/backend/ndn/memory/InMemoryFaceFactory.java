@@ -0,0 +1,60 @@
+package com.stefanolupo.ndngame.backend.ndn.memory;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.stefanolupo.ndngame.backend.ndn.FaceFactory;
+import com.stefanolupo.ndngame.backend.ndn.LoadTrackingFace;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.security.KeyChain;
+import net.named_data.jndn.security.pib.PibMemory;
+import net.named_data.jndn.security.tpm.TpmBackEndMemory;
+import net.named_data.jndn.transport.Transport;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Connects faces to an {@link InMemoryForwarder}
+ * Share one instance between the BackendModules of all simulated players so they talk to the same forwarder
+ * Commands are signed with a throwaway in memory identity so no NFD / PIB setup is needed
+ */
+public class InMemoryFaceFactory implements FaceFactory {
+
+    private static final Name IDENTITY_NAME = new Name("/com/stefanolupo/ndngame/in-memory");
+
+    private final InMemoryForwarder forwarder;
+    private final Supplier<KeyChain> keyChainSupplier = Suppliers.memoize(InMemoryFaceFactory::buildKeyChain);
+
+    public InMemoryFaceFactory(InMemoryForwarder forwarder) {
+        this.forwarder = forwarder;
+    }
+
+    @Override
+    public LoadTrackingFace createThreadPoolFace(ScheduledExecutorService executorService) {
+        return new LoadTrackingFace(
+                executorService,
+                new InMemoryTransport(forwarder, executorService),
+                new Transport.ConnectionInfo()
+        );
+    }
+
+    @Override
+    public Face createFace() {
+        return new Face(new InMemoryTransport(forwarder), new Transport.ConnectionInfo());
+    }
+
+    @Override
+    public KeyChain getKeyChain() {
+        return keyChainSupplier.get();
+    }
+
+    private static KeyChain buildKeyChain() {
+        try {
+            KeyChain keyChain = new KeyChain(new PibMemory(), new TpmBackEndMemory());
+            keyChain.createIdentityV2(IDENTITY_NAME);
+            return keyChain;
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to create in memory keychain", e);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.stefanolupo.ndngame.backend.ndn.memory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.named_data.jndn.ControlParameters;
+import net.named_data.jndn.ControlResponse;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.encoding.EncodingException;
+import net.named_data.jndn.encoding.tlv.Tlv;
+import net.named_data.jndn.encoding.tlv.TlvEncoder;
+import net.named_data.jndn.util.Blob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal NDN forwarder that lives inside the JVM
+ * Faces connect to it through an {@link InMemoryTransport} which allows many players to be run
+ * and benchmarked in a single process without an NFD install
+ *
+ * Supports a FIB populated by the NFD rib register / unregister commands, a PIT with interest aggregation,
+ * nonce based loop detection and lifetime expiry, as well as an optional bounded content store
+ * Interests with no route are rejected with a NoRoute NACK as NFD's best route strategy does
+ *
+ * All forwarding state is only ever touched from a single forwarding thread so needs no locking
+ */
+public class InMemoryForwarder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryForwarder.class);
+
+    private static final Name RIB_COMMAND_PREFIX = new Name("/localhost/nfd/rib");
+    private static final String REGISTER_VERB = "register";
+    private static final String UNREGISTER_VERB = "unregister";
+    private static final int COMMAND_VERB_INDEX = 3;
+    private static final int COMMAND_PARAMETERS_INDEX = 4;
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_BAD_COMMAND = 400;
+    private static final double DEFAULT_INTEREST_LIFETIME_MS = 4000;
+    private static final int NACK_REASON_NO_ROUTE = 150;
+
+    private final ScheduledExecutorService forwardingThread;
+    private final AtomicInteger nextFaceId = new AtomicInteger(1);
+    private final Map<Integer, InMemoryTransport> faces = new ConcurrentHashMap<>();
+
+    private final Map<Name, Set<Integer>> fib = new HashMap<>();
+    private final Map<Name, List<PitEntry>> pit = new HashMap<>();
+    private final ContentStore contentStore;
+
+    /**
+     * @param contentStoreCapacity max number of Data packets to cache, 0 disables the content store
+     */
+    public InMemoryForwarder(int contentStoreCapacity) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("in-memory-forwarder-%d")
+                .setDaemon(true)
+                .build();
+        forwardingThread = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        contentStore = contentStoreCapacity > 0 ? new ContentStore(contentStoreCapacity) : null;
+    }
+
+    int addFace(InMemoryTransport transport) {
+        int faceId = nextFaceId.getAndIncrement();
+        faces.put(faceId, transport);
+        LOG.debug("Added face {}", faceId);
+        return faceId;
+    }
+
+    void removeFace(int faceId) {
+        faces.remove(faceId);
+        forwardingThread.execute(() -> {
+            fib.values().forEach(nextHops -> nextHops.remove(faceId));
+            pit.values().forEach(entries -> entries.forEach(e -> e.inRecords.remove(faceId)));
+        });
+    }
+
+    /**
+     * Called by a transport when its face sends an element
+     * The buffer is copied as jNDN may reuse it once send returns
+     */
+    void receive(int faceId, ByteBuffer element) {
+        ByteBuffer copy = ByteBuffer.allocate(element.remaining());
+        copy.put(element.duplicate());
+        copy.flip();
+        forwardingThread.execute(() -> dispatch(faceId, copy));
+    }
+
+    private void dispatch(int faceId, ByteBuffer element) {
+        try {
+            int type = element.get(element.position()) & 0xFF;
+            if (type == Tlv.Interest) {
+                Interest interest = new Interest();
+                interest.wireDecode(element.duplicate());
+                onInterest(faceId, interest, element);
+            } else if (type == Tlv.Data) {
+                Data data = new Data();
+                data.wireDecode(element.duplicate());
+                onData(data, element);
+            } else {
+                LOG.warn("Dropping element of unsupported type {} from face {}", type, faceId);
+            }
+        } catch (EncodingException e) {
+            LOG.error("Unable to decode element from face {}", faceId, e);
+        }
+    }
+
+    private void onInterest(int faceId, Interest interest, ByteBuffer wire) {
+        Name name = interest.getName();
+        if (RIB_COMMAND_PREFIX.isPrefixOf(name)) {
+            onRibCommand(faceId, interest);
+            return;
+        }
+
+        if (contentStore != null) {
+            ByteBuffer cached = contentStore.find(interest);
+            if (cached != null) {
+                sendToFace(faceId, cached);
+                return;
+            }
+        }
+
+        List<PitEntry> entries = pit.computeIfAbsent(name, n -> new ArrayList<>(1));
+        PitEntry entry = null;
+        for (PitEntry e : entries) {
+            if (e.canBePrefix == interest.getCanBePrefix() && e.mustBeFresh == interest.getMustBeFresh()) {
+                entry = e;
+                break;
+            }
+        }
+
+        boolean isNewEntry = entry == null;
+        if (isNewEntry) {
+            entry = new PitEntry(name, interest.getCanBePrefix(), interest.getMustBeFresh());
+            entries.add(entry);
+        }
+
+        Blob nonce = interest.getNonce();
+        if (!entry.nonces.add(nonce)) {
+            LOG.debug("Dropping looping interest {} from face {}", name.toUri(), faceId);
+            return;
+        }
+
+        // Retransmissions from a downstream are forwarded again, new downstreams are aggregated
+        boolean isRetransmission = entry.inRecords.containsKey(faceId);
+
+        double lifetime = interest.getInterestLifetimeMilliseconds();
+        long lifetimeMs = (long) (lifetime < 0 ? DEFAULT_INTEREST_LIFETIME_MS : lifetime);
+        entry.inRecords.put(faceId, nonce);
+        PitEntry scheduledEntry = entry;
+        forwardingThread.schedule(() -> expire(scheduledEntry, faceId, nonce), lifetimeMs, TimeUnit.MILLISECONDS);
+
+        if ((isNewEntry || isRetransmission) && !forwardInterest(faceId, name, wire)) {
+            LOG.debug("No route for {}", name.toUri());
+            rejectInterest(entry, faceId, wire);
+        }
+    }
+
+    /**
+     * @return false if there was no route to forward the interest on
+     */
+    private boolean forwardInterest(int incomingFaceId, Name name, ByteBuffer wire) {
+        Set<Integer> nextHops = longestPrefixMatch(name);
+        if (nextHops == null) {
+            return false;
+        }
+
+        for (Integer nextHop : nextHops) {
+            if (nextHop != incomingFaceId) {
+                sendToFace(nextHop, wire);
+            }
+        }
+
+        return true;
+    }
+
+    private void rejectInterest(PitEntry entry, int faceId, ByteBuffer wire) {
+        entry.inRecords.remove(faceId);
+        if (entry.inRecords.isEmpty()) {
+            List<PitEntry> entries = pit.get(entry.name);
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                pit.remove(entry.name);
+            }
+        }
+
+        sendToFace(faceId, encodeNoRouteNack(wire));
+    }
+
+    /**
+     * NDNLPv2 packet carrying a NoRoute NACK header and the rejected interest as its fragment
+     */
+    private static ByteBuffer encodeNoRouteNack(ByteBuffer interestWire) {
+        // TlvEncoder writes back to front
+        TlvEncoder encoder = new TlvEncoder(interestWire.remaining() + 32);
+        int packetEndLength = encoder.getLength();
+
+        encoder.writeBlobTlv(Tlv.LpPacket_Fragment, interestWire.duplicate());
+
+        int nackEndLength = encoder.getLength();
+        encoder.writeNonNegativeIntegerTlv(Tlv.LpPacket_NackReason, NACK_REASON_NO_ROUTE);
+        encoder.writeTypeAndLength(Tlv.LpPacket_Nack, encoder.getLength() - nackEndLength);
+
+        encoder.writeTypeAndLength(Tlv.LpPacket_LpPacket, encoder.getLength() - packetEndLength);
+        return encoder.getOutput();
+    }
+
+    private void onData(Data data, ByteBuffer wire) {
+        Name dataName = data.getName();
+        boolean satisfiedAny = false;
+
+        for (int i = 0; i <= dataName.size(); i++) {
+            Name prefix = dataName.getPrefix(i);
+            List<PitEntry> entries = pit.get(prefix);
+            if (entries == null) {
+                continue;
+            }
+
+            boolean isFullName = i == dataName.size();
+            Iterator<PitEntry> it = entries.iterator();
+            while (it.hasNext()) {
+                PitEntry entry = it.next();
+                if (!entry.canBePrefix && !isFullName) {
+                    continue;
+                }
+
+                entry.inRecords.keySet().forEach(faceId -> sendToFace(faceId, wire));
+                it.remove();
+                satisfiedAny = true;
+            }
+
+            if (entries.isEmpty()) {
+                pit.remove(prefix);
+            }
+        }
+
+        if (!satisfiedAny) {
+            LOG.debug("Dropping unsolicited data {}", dataName.toUri());
+            return;
+        }
+
+        if (contentStore != null) {
+            contentStore.insert(data, wire);
+        }
+    }
+
+    private void onRibCommand(int faceId, Interest command) {
+        Name name = command.getName();
+        ControlResponse response = new ControlResponse();
+
+        try {
+            String verb = name.get(COMMAND_VERB_INDEX).toEscapedString();
+            ControlParameters parameters = new ControlParameters();
+            parameters.wireDecode(name.get(COMMAND_PARAMETERS_INDEX).getValue());
+            parameters.setFaceId(faceId);
+
+            if (REGISTER_VERB.equals(verb)) {
+                fib.computeIfAbsent(new Name(parameters.getName()), n -> new HashSet<>()).add(faceId);
+                LOG.debug("Registered {} on face {}", parameters.getName().toUri(), faceId);
+            } else if (UNREGISTER_VERB.equals(verb)) {
+                Set<Integer> nextHops = fib.get(parameters.getName());
+                if (nextHops != null) {
+                    nextHops.remove(faceId);
+                }
+            } else {
+                throw new EncodingException("Unsupported rib command " + verb);
+            }
+
+            response.setStatusCode(STATUS_OK)
+                    .setStatusText("OK")
+                    .setBodyAsControlParameters(parameters);
+        } catch (EncodingException | IndexOutOfBoundsException e) {
+            LOG.warn("Invalid rib command {}", name.toUri(), e);
+            response.setStatusCode(STATUS_BAD_COMMAND).setStatusText("Bad command");
+        }
+
+        Data data = new Data(name);
+        data.setContent(response.wireEncode());
+        sendToFace(faceId, data.wireEncode().buf());
+    }
+
+    private Set<Integer> longestPrefixMatch(Name name) {
+        for (int i = name.size(); i >= 0; i--) {
+            Set<Integer> nextHops = fib.get(name.getPrefix(i));
+            if (nextHops != null && !nextHops.isEmpty()) {
+                return nextHops;
+            }
+        }
+
+        return null;
+    }
+
+    private void expire(PitEntry entry, int faceId, Blob nonce) {
+        // A retransmission will have replaced the in record and scheduled its own expiry
+        if (!entry.inRecords.remove(faceId, nonce) || !entry.inRecords.isEmpty()) {
+            return;
+        }
+
+        List<PitEntry> entries = pit.get(entry.name);
+        if (entries != null) {
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                pit.remove(entry.name);
+            }
+        }
+    }
+
+    private void sendToFace(int faceId, ByteBuffer element) {
+        InMemoryTransport transport = faces.get(faceId);
+        if (transport != null) {
+            transport.deliver(element.duplicate());
+        }
+    }
+
+    private static final class PitEntry {
+        final Name name;
+        final boolean canBePrefix;
+        final boolean mustBeFresh;
+        // Downstream face id -> nonce of the latest interest received from it
+        final Map<Integer, Blob> inRecords = new HashMap<>();
+        final Set<Blob> nonces = new HashSet<>();
+
+        PitEntry(Name name, boolean canBePrefix, boolean mustBeFresh) {
+            this.name = name;
+            this.canBePrefix = canBePrefix;
+            this.mustBeFresh = mustBeFresh;
+        }
+    }
+
+    /**
+     * FIFO bounded cache of Data packets
+     * Names are kept in canonical order so all names under a prefix are adjacent
+     */
+    private static final class ContentStore {
+        private final int capacity;
+        private final TreeMap<Name, CachedData> dataByName = new TreeMap<>(Name::compare);
+        private final Deque<Name> insertionOrder = new ArrayDeque<>();
+
+        ContentStore(int capacity) {
+            this.capacity = capacity;
+        }
+
+        ByteBuffer find(Interest interest) {
+            Name interestName = interest.getName();
+            long now = System.currentTimeMillis();
+
+            for (Map.Entry<Name, CachedData> entry : dataByName.tailMap(interestName, true).entrySet()) {
+                Name dataName = entry.getKey();
+                if (!interestName.isPrefixOf(dataName)) {
+                    return null;
+                }
+
+                if (!interest.getCanBePrefix() && dataName.size() != interestName.size()) {
+                    return null;
+                }
+
+                CachedData cachedData = entry.getValue();
+                if (!interest.getMustBeFresh() || cachedData.staleAtMs > now) {
+                    return cachedData.wire;
+                }
+            }
+
+            return null;
+        }
+
+        void insert(Data data, ByteBuffer wire) {
+            double freshnessPeriod = data.getMetaInfo().getFreshnessPeriod();
+            long staleAtMs = System.currentTimeMillis() + (long) Math.max(freshnessPeriod, 0);
+            Name name = data.getName();
+
+            if (dataByName.put(name, new CachedData(wire, staleAtMs)) == null) {
+                insertionOrder.addLast(name);
+            }
+
+            while (dataByName.size() > capacity) {
+                dataByName.remove(insertionOrder.removeFirst());
+            }
+        }
+    }
+
+    private static final class CachedData {
+        final ByteBuffer wire;
+        final long staleAtMs;
+
+        CachedData(ByteBuffer wire, long staleAtMs) {
+            this.wire = wire;
+            this.staleAtMs = staleAtMs;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.stefanolupo.ndngame.backend.ndn.memory;
+
+import net.named_data.jndn.encoding.ElementListener;
+import net.named_data.jndn.encoding.EncodingException;
+import net.named_data.jndn.transport.Transport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * A jNDN Transport connecting a face to an {@link InMemoryForwarder}
+ * When built with an executor, received elements are dispatched on it (for use with a ThreadPoolFace)
+ * otherwise they are queued until the owning face calls processEvents()
+ */
+public class InMemoryTransport extends Transport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryTransport.class);
+    private static final int NOT_CONNECTED = -1;
+
+    private final InMemoryForwarder forwarder;
+    private final Executor executor;
+    private final Queue<ByteBuffer> receivedElements = new ConcurrentLinkedQueue<>();
+
+    private volatile ElementListener elementListener;
+    private volatile int faceId = NOT_CONNECTED;
+
+    public InMemoryTransport(InMemoryForwarder forwarder, Executor executor) {
+        this.forwarder = forwarder;
+        this.executor = executor;
+    }
+
+    public InMemoryTransport(InMemoryForwarder forwarder) {
+        this(forwarder, null);
+    }
+
+    @Override
+    public boolean isLocal(ConnectionInfo connectionInfo) {
+        return true;
+    }
+
+    @Override
+    public boolean isAsync() {
+        return executor != null;
+    }
+
+    @Override
+    public void connect(ConnectionInfo connectionInfo, ElementListener elementListener, Runnable onConnected) {
+        this.elementListener = elementListener;
+        faceId = forwarder.addFace(this);
+        if (onConnected != null) {
+            onConnected.run();
+        }
+    }
+
+    @Override
+    public void send(ByteBuffer data) throws IOException {
+        if (faceId == NOT_CONNECTED) {
+            throw new IOException("Cannot send before the transport is connected");
+        }
+
+        forwarder.receive(faceId, data);
+    }
+
+    @Override
+    public void processEvents() {
+        ByteBuffer element;
+        while ((element = receivedElements.poll()) != null) {
+            onReceivedElement(element);
+        }
+    }
+
+    @Override
+    public boolean getIsConnected() {
+        return faceId != NOT_CONNECTED;
+    }
+
+    @Override
+    public void close() {
+        if (faceId != NOT_CONNECTED) {
+            forwarder.removeFace(faceId);
+            faceId = NOT_CONNECTED;
+        }
+    }
+
+    /**
+     * Called by the forwarder when an element should be sent down to this transport's face
+     */
+    void deliver(ByteBuffer element) {
+        if (executor != null) {
+            executor.execute(() -> onReceivedElement(element));
+        } else {
+            receivedElements.add(element);
+        }
+    }
+
+    private void onReceivedElement(ByteBuffer element) {
+        try {
+            elementListener.onReceivedElement(element);
+        } catch (EncodingException e) {
+            LOG.error("Unable to decode element received on face {}", faceId, e);
+        }
+    }
+}
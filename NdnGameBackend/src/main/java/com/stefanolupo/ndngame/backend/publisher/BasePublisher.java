@@ -2,32 +2,36 @@ package com.stefanolupo.ndngame.backend.publisher;
 
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.name.Named;
 import com.hubspot.liveconfig.value.Value;
 import com.stefanolupo.ndngame.backend.annotations.BackendMetrics;
+import com.stefanolupo.ndngame.backend.executors.ExecutorManager;
+import com.stefanolupo.ndngame.backend.executors.HashedWheelTimer;
 import com.stefanolupo.ndngame.backend.metrics.PercentageGauge;
 import com.stefanolupo.ndngame.backend.ndn.FaceManager;
 import com.stefanolupo.ndngame.metrics.MetricNames;
 import com.stefanolupo.ndngame.names.SequenceNumberedName;
 import com.stefanolupo.ndngame.util.MathUtils;
 import net.named_data.jndn.*;
+import net.named_data.jndn.encoding.EncodingException;
 import net.named_data.jndn.util.Blob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public class BasePublisher implements OnInterestCallback {
 
@@ -36,69 +40,85 @@ public class BasePublisher implements OnInterestCallback {
     private final Supplier<Meter> interestMeterDelayedSupplier;
     private Meter interestMeter;
     private final PercentageGauge percentageGauge;
-    private final Map<Long, Integer> snHits = new ConcurrentHashMap<>();
+    private final DuplicateRequestDetector duplicateRequestDetector;
 
     // Assisted
     private final Function<Interest, SequenceNumberedName> interestTFunction;
     private final Value<Double> freshnessPeriod;
 
     // Class logic
-    private final ConcurrentMap<SequenceNumberedName, Face> outstandingInterests = new ConcurrentHashMap<>();
-    private final BiConsumer<DataSend, Long> sendDataFunction;
-    private Blob latestBlob;
-    private long sequenceNumberValue = 0;
-    private final AtomicReference<UpdateWithTimestamp> updateReference =
-            new AtomicReference<>(UpdateWithTimestamp.withoutUpdate());
+    private final PendingInterestTable outstandingInterests;
+    private final Consumer<DataSend> sendDataFunction;
+    private final AtomicReference<PublishedSnapshot> latestSnapshot = new AtomicReference<>(PublishedSnapshot.EMPTY);
+    // Only touched by the scheduler when polling
+    private long lastProcessedSequenceNumber = 0;
+
+    // Segmentation, content larger than a segment is sent as segment 0 with the rest fetched from here
+    private final Value<Integer> segmentSize;
+    private final Value<Long> segmentRetentionMs;
+    private final Map<Name, List<Blob>> encodedSegmentsByName = new ConcurrentHashMap<>();
+
+    private final ProducerContentStore contentStore;
+
+    // Push mode
+    private final boolean isPushMode;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean(false);
 
     @Inject
     public BasePublisher(FaceManager faceManager,
+                         ExecutorManager executorManager,
+                         HashedWheelTimer timer,
+                         DataSender dataSender,
                          @BackendMetrics MetricRegistry metrics,
                          @Named("base.publisher.queue.process.per.sec") Value<Long> queueProcessPerSec,
                          @Named("base.publisher.queue.process.multithread") Value<Boolean> queueProcessMultithread,
+                         @Named("base.publisher.push.mode.enabled") Value<Boolean> pushModeEnabled,
+                         @Named("base.publisher.segment.size.bytes") Value<Integer> segmentSize,
+                         @Named("base.publisher.segment.retention.ms") Value<Long> segmentRetentionMs,
+                         @Named("base.publisher.content.store.capacity") Value<Integer> contentStoreCapacity,
+                         @Named("base.publisher.duplicate.window.secs") Value<Integer> duplicateWindowSecs,
+                         @Named("base.publisher.duplicate.tracked.sequence.numbers") Value<Integer> duplicateTrackedSequenceNumbers,
                          @Assisted Name listenName,
                          @Assisted Function<Interest, SequenceNumberedName> interestToSequenceNumberedName,
                          @Assisted Value<Double> freshnessPeriod) {
         this.interestMeterDelayedSupplier = () -> metrics.meter(MetricNames.basePublisherInterestRate(listenName));
         this.percentageGauge = metrics.register(MetricNames.basePublisherUpdatePercentage(listenName), PercentageGauge.getInstance());
+        this.duplicateRequestDetector = metrics.register(
+                MetricNames.basePublisherDuplicateRatio(listenName),
+                new DuplicateRequestDetector(
+                        duplicateWindowSecs.get(),
+                        duplicateTrackedSequenceNumbers.get(),
+                        metrics.meter(MetricNames.basePublisherDuplicateInterests(listenName))));
 
         this.interestTFunction = interestToSequenceNumberedName;
         this.freshnessPeriod = freshnessPeriod;
+        this.segmentSize = segmentSize;
+        this.segmentRetentionMs = segmentRetentionMs;
+        this.outstandingInterests = new PendingInterestTable(
+                timer,
+                metrics.meter(MetricNames.pendingInterestEvictions(listenName)),
+                metrics.meter(MetricNames.pendingInterestStaleSendsAvoided(listenName)));
+        this.contentStore = new ProducerContentStore(
+                contentStoreCapacity.get(),
+                freshnessPeriod,
+                metrics.counter(MetricNames.producerContentStoreHits(listenName)),
+                metrics.counter(MetricNames.producerContentStoreMisses(listenName)));
+
+        sendDataFunction = queueProcessMultithread.get() ? dataSender::send : dataSender::sendNow;
+
+        isPushMode = pushModeEnabled.get();
+        scheduler = executorManager.getScheduler("bp-queue-proc-" + listenName.toUri());
+        if (!isPushMode) {
+            scheduler.scheduleAtFixedRate(
+                    this::processQueue,
+                    0,
+                    MathUtils.MICRO_SECONDS_PER_SEC / queueProcessPerSec.get(),
+                    TimeUnit.MICROSECONDS);
+        }
 
         LOG.debug("Registering {}", listenName);
         faceManager.registerBasicPrefix(listenName, this);
-
-        if (queueProcessMultithread.get()) {
-            ThreadFactory builder = new ThreadFactoryBuilder()
-                    .setNameFormat("bp-data-sender-" + listenName.toUri() + "-%d")
-                    .build();
-            ExecutorService executor = Executors.newCachedThreadPool(builder);
-            sendDataFunction = (ds, ts) -> executor.submit(() -> doSendData(ds, ts));
-        } else {
-            sendDataFunction = this::doSendData;
-        }
-
-        ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
-                .setNameFormat("bp-queue-proc-" + listenName.toUri() + "-%d")
-                .build();
-        Executors.newSingleThreadScheduledExecutor(namedThreadFactory).scheduleAtFixedRate(
-                this::processQueue,
-                0,
-                MathUtils.MICRO_SECONDS_PER_SEC / queueProcessPerSec.get(),
-                TimeUnit.MICROSECONDS);
-
-        Executors.newSingleThreadScheduledExecutor(namedThreadFactory).scheduleAtFixedRate(
-                () ->  {
-                    Set<Map.Entry<Long, Integer>> entries = snHits.entrySet().stream()
-                            .filter(e -> e.getValue() > 1)
-                            .collect(Collectors.toSet());
-                    String name = listenName.toUri();
-                    if (entries.isEmpty()) {
-                        LOG.debug("{}: No duplicate SN requests seen", name);
-                    } else {
-                        LOG.warn("{}: Saw duplicate sn requests", name);
-                        LOG.warn("{}", entries);
-                    }
-                }, 20, 20, TimeUnit.SECONDS);
     }
 
     /**
@@ -106,21 +126,81 @@ public class BasePublisher implements OnInterestCallback {
      * @param latestBlob the new blob to serve
      */
     public long updateLatestBlob(Blob latestBlob) {
-        this.latestBlob = latestBlob;
-        updateReference.getAndSet(UpdateWithTimestamp.withUpdate());
-        return ++sequenceNumberValue;
+        return updateLatestBlob(latestBlob, PublishedSnapshot.ANSWER_ALL);
+    }
+
+    /**
+     * Update the blob that will be used to service interests, but only send it to some consumers
+     * Interests from the rest stay parked until a later update is sent to them or they expire
+     * @param latestBlob the new blob to serve
+     * @param shouldAnswer whether a consumer which last saw a sequence number should be sent latestBlob
+     */
+    public long updateLatestBlob(Blob latestBlob, LongPredicate shouldAnswer) {
+        return updateLatestContent(sequenceNumberSeen -> latestBlob, shouldAnswer);
+    }
+
+    /**
+     * Update the content that will be used to service interests, where consumers may get different content
+     * depending on the sequence number they last saw (e.g. only what changed since then)
+     * @param contentBySequenceNumberSeen gives the content to send a consumer which last saw a sequence number,
+     *                                    called once per distinct sequence number each time interests are answered
+     */
+    public long updateLatestContent(LongFunction<Blob> contentBySequenceNumberSeen) {
+        return updateLatestContent(contentBySequenceNumberSeen, PublishedSnapshot.ANSWER_ALL);
+    }
+
+    private long updateLatestContent(LongFunction<Blob> contentBySequenceNumberSeen, LongPredicate shouldAnswer) {
+        PublishedSnapshot snapshot = latestSnapshot.updateAndGet(
+                previous -> previous.next(contentBySequenceNumberSeen, shouldAnswer));
+
+        if (isPushMode) {
+            scheduleDrain();
+        }
+
+        return snapshot.getSequenceNumber();
     }
 
-    public Set<SequenceNumberedName> getOutstandingInterests() {
-        return ImmutableSet.copyOf(outstandingInterests.keySet());
+    /**
+     * Visit each distinct sequence number last seen by consumers with interests outstanding, in ascending order,
+     * until visitor returns false
+     */
+    public void forEachOutstandingSequenceNumberSeen(LongPredicate visitor) {
+        outstandingInterests.forEachSequenceNumberSeen(visitor);
     }
 
     @Override
     public void onInterest(Name prefix, Interest interest, Face face, long interestFilterId, InterestFilter filter) {
+        if (interest.getName().get(-1).isSegment()) {
+            sendSegment(interest, face);
+            return;
+        }
+
         SequenceNumberedName interestName = interestTFunction.apply(interest);
-        outstandingInterests.put(interestName, face);
-        snHits.compute(interestName.getLatestSequenceNumberSeen(), (k, v) -> v == null ? 1 : ++v);
+        // Before the content store, its hits are mostly the retransmissions it's counting
+        duplicateRequestDetector.record(interestName.getLatestSequenceNumberSeen());
 
+        // Retransmissions and consumers at the same sequence number can be answered with what was already sent
+        PublishedSnapshot snapshot = latestSnapshot.get();
+        if (snapshot.shouldAnswer(interestName.getLatestSequenceNumberSeen())) {
+            EncodedData storedData = contentStore.get(canonicalName(interestName, snapshot));
+            if (storedData != null) {
+                sendDataFunction.accept(new DataSend(face, storedData.getName(), storedData.getEncoding()));
+                markInterest();
+                return;
+            }
+        }
+
+        outstandingInterests.add(interestName, interest, face);
+
+        // Checked after parking the interest so an update racing with it is never missed
+        if (isPushMode && latestSnapshot.get().shouldAnswer(interestName.getLatestSequenceNumberSeen())) {
+            scheduleDrain();
+        }
+
+        markInterest();
+    }
+
+    private void markInterest() {
         // Fairly gross, but don't want to start meter until we get first interest
         if (interestMeter == null) {
             interestMeter = interestMeterDelayedSupplier.get();
@@ -129,76 +209,136 @@ public class BasePublisher implements OnInterestCallback {
     }
 
     private void processQueue() {
+        PublishedSnapshot snapshot = latestSnapshot.get();
 
-        // Consume the update by setting hasUpdate to false (regardless of its previous value)
-        // while getting the previous value
-        UpdateWithTimestamp previousValue = updateReference.getAndSet(UpdateWithTimestamp.withoutUpdate());
-
-        if (!previousValue.hasUpdate) {
+        if (snapshot.getSequenceNumber() == lastProcessedSequenceNumber) {
             percentageGauge.miss();
             return;
         } else {
             percentageGauge.hit();
         }
 
-        long updateTimestamp = previousValue.timestamp;
+        lastProcessedSequenceNumber = snapshot.getSequenceNumber();
+        sendOutstandingInterests(snapshot);
+    }
 
-        // Send any interests with sequenceNumber <= currentSequenceNumber
-        for (Iterator<Map.Entry<SequenceNumberedName, Face>> i = outstandingInterests.entrySet().iterator(); i.hasNext(); ) {
-            Map.Entry<SequenceNumberedName, Face> entry = i.next();
-            SequenceNumberedName sequenceNumberedName = entry.getKey();
-            Face face = entry.getValue();
+    /**
+     * Wake the scheduler to answer any interests behind the latest sequence number
+     * At most one drain is queued at a time, updates arriving while it's queued are picked up by it
+     */
+    private void scheduleDrain() {
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::drainOutstandingInterests);
+        }
+    }
+
+    private void drainOutstandingInterests() {
+        // Cleared before draining so an update arriving mid drain schedules another
+        isDrainScheduled.set(false);
+        sendOutstandingInterests(latestSnapshot.get());
+    }
+
+    private void sendOutstandingInterests(PublishedSnapshot snapshot) {
+        // Send any interests with sequenceNumber < currentSequenceNumber which the snapshot is for, the rest stay parked
+        outstandingInterests.drainBehind(snapshot.getSequenceNumber(), snapshot::shouldAnswer, new FanOut(snapshot));
+    }
 
-            if (sequenceNumberedName.getLatestSequenceNumberSeen() < sequenceNumberValue) {
-                i.remove();
-                sendDataFunction.accept(new DataSend(face, sequenceNumberedName, latestBlob), updateTimestamp);
-            } else {
-                LOG.debug("Had Update but {} already had sn {}", sequenceNumberedName.getFullName(), sequenceNumberValue);
+    private void sendSegment(Interest interest, Face face) {
+        Name name = interest.getName();
+        List<Blob> encodedSegments = encodedSegmentsByName.get(name.getPrefix(-1));
+        try {
+            long segment = name.get(-1).toSegment();
+            if (encodedSegments == null || segment >= encodedSegments.size()) {
+                LOG.debug("No segment for {}", name);
+                return;
             }
+            sendDataFunction.accept(new DataSend(face, name, encodedSegments.get((int) segment)));
+        } catch (EncodingException e) {
+            LOG.error("Unable to parse segment of " + name.toUri(), e);
         }
     }
 
-    private void doSendData(DataSend dataSend, long updateTimestamp) {
-        SequenceNumberedName name = dataSend.getName();
-        name.setNextSequenceNumber(sequenceNumberValue);
-        if (name.getLatestSequenceNumberSeen() >= sequenceNumberValue) {
-            // TODO: This should hopefully be fixed
-            LOG.error("Got name with sequence number ahead of my latest sequence number: {} {}", sequenceNumberValue, name);
-            name.setNextSequenceNumber(sequenceNumberValue+10);
-        }
-        name.setUpdateTimestamp(updateTimestamp);
-        Data data = new Data(name.getFullName()).setContent(latestBlob);
-        data.getMetaInfo().setFreshnessPeriod(freshnessPeriod.get());
-        try {
-            dataSend.getFace().putData(data);
-        } catch (Exception e) {
-            LOG.error("Unable to send data to satisfy interest " + name.getFullName(), e);
+    /**
+     * Keep the segments around long enough for consumers to fetch the rest after the first
+     * @return the stored segments, which are the existing ones if these were already stored
+     */
+    private List<Blob> storeSegments(Name name, List<Blob> encodedSegments) {
+        List<Blob> existingSegments = encodedSegmentsByName.putIfAbsent(name, encodedSegments);
+        if (existingSegments != null) {
+            return existingSegments;
         }
+
+        scheduler.schedule(() -> encodedSegmentsByName.remove(name), segmentRetentionMs.get(), TimeUnit.MILLISECONDS);
+        return encodedSegments;
     }
 
-    private static final class UpdateWithTimestamp {
-        private boolean hasUpdate;
-        private long timestamp;
+    /**
+     * Answers one drain's worth of interests
+     * Every consumer which last saw the same sequence number gets the same Data name, and
+     * interests are drained in that order, so each distinct packet is only built and encoded once
+     */
+    private final class FanOut implements BiConsumer<SequenceNumberedName, Face> {
+        private final PublishedSnapshot snapshot;
+
+        private long encodedSequenceNumberSeen = -1;
+        private EncodedData encodedData;
 
-        private UpdateWithTimestamp(boolean hasUpdate, long timestamp) {
-            this.hasUpdate = hasUpdate;
-            this.timestamp = timestamp;
+        FanOut(PublishedSnapshot snapshot) {
+            this.snapshot = snapshot;
         }
 
-        static UpdateWithTimestamp withUpdate() {
-            return new UpdateWithTimestamp(true, System.currentTimeMillis());
+        @Override
+        public void accept(SequenceNumberedName name, Face face) {
+            if (encodedData == null || name.getLatestSequenceNumberSeen() != encodedSequenceNumberSeen) {
+                encodedSequenceNumberSeen = name.getLatestSequenceNumberSeen();
+                encodedData = getOrEncodeData(name, snapshot);
+            }
+            sendDataFunction.accept(new DataSend(face, encodedData.getName(), encodedData.getEncoding()));
         }
+    }
 
-        static UpdateWithTimestamp withoutUpdate() {
-            return new UpdateWithTimestamp(false, -1);
+    /**
+     * Get the Data answering name for snapshot from the content store, building and storing it if it isn't there
+     */
+    private EncodedData getOrEncodeData(SequenceNumberedName name, PublishedSnapshot snapshot) {
+        Name fullName = canonicalName(name, snapshot);
+        EncodedData encodedData = contentStore.get(fullName);
+        if (encodedData == null) {
+            encodedData = encodeData(fullName, snapshot.getContent(name.getLatestSequenceNumberSeen()));
+            contentStore.put(fullName, encodedData);
         }
 
-        @Override
-        public String toString() {
-            return "UpdateWithTimestamp{" +
-                    "hasUpdate=" + hasUpdate +
-                    ", timestamp=" + timestamp +
-                    '}';
+        return encodedData;
+    }
+
+    private EncodedData encodeData(Name fullName, Blob content) {
+        // Content can depend on when it's built, so stick with segments consumers may already be fetching
+        List<Blob> storedSegments = encodedSegmentsByName.get(fullName);
+        if (storedSegments != null) {
+            return new EncodedData(new Name(fullName).appendSegment(0), storedSegments.get(0));
         }
+
+        if (content.size() <= segmentSize.get()) {
+            Data data = new Data(fullName).setContent(content);
+            data.getMetaInfo().setFreshnessPeriod(freshnessPeriod.get());
+            return new EncodedData(data.getName(), data.wireEncode());
+        }
+
+        List<Blob> encodedSegments = new ArrayList<>();
+        for (Data segment : Segmenter.segment(fullName, content, segmentSize.get())) {
+            segment.getMetaInfo().setFreshnessPeriod(freshnessPeriod.get());
+            encodedSegments.add(segment.wireEncode());
+        }
+
+        return new EncodedData(new Name(fullName).appendSegment(0), storeSegments(fullName, encodedSegments).get(0));
+    }
+
+    /**
+     * The name of the Data answering name for snapshot, the same for every consumer at the same sequence number
+     */
+    private static Name canonicalName(SequenceNumberedName name, PublishedSnapshot snapshot) {
+        name.setNextSequenceNumber(snapshot.getSequenceNumber());
+        name.setUpdateTimestamp(snapshot.getTimestamp());
+        return name.getFullName();
     }
 }
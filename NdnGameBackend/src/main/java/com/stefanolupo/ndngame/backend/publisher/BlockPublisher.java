@@ -23,25 +23,55 @@ import net.named_data.jndn.util.Blob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Publishes the local player's blocks
+ * Each change is stamped with the version it was published at, so a consumer which last saw version N
+ * only gets the blocks changed or removed since N (or every block if N is too far behind)
+ * When coalescing, changes are only published by {@link #flushPendingUpdates()}, so all the changes made
+ * during one engine update go out as a single version
+ */
 @Singleton
 public class BlockPublisher {
 
     private static final Logger LOG = LoggerFactory.getLogger(BlockPublisher.class);
 
     private final ConcurrentMap<BlockName, Block> localBlocksByName = new ConcurrentHashMap<>();
+    // Each block encoded as a Blocks message holding only it, these concatenate into a Blocks message holding them all
+    private final ConcurrentMap<BlockName, byte[]> encodedBlocksByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<BlockName, Long> versionByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<BlockName, Long> removedVersionByName = new ConcurrentHashMap<>();
     private final BasePublisher publisher;
     private final Histogram blockPacketSizeHist;
+    private final Value<Integer> deltaHistoryVersions;
+    private final boolean isCoalescing;
+    private final Value<Integer> maxPublishesPerSec;
+
+    // Guarded by this, only changed when publishing
+    private long version = 0;
+    private boolean hasPendingUpdates = false;
+    private long lastPublishTime = 0;
+    // Oldest version a delta can be built from, removals at or before this have been forgotten
+    private volatile long oldestDeltaVersion = 0;
 
     @Inject
     public BlockPublisher(LocalConfig localConfig,
                           BasePublisherFactory factory,
                           FaceManager faceManager,
                           @BackendMetrics MetricRegistry metrics,
-                          @Named("block.publisher.freshness.period.ms") Value<Double> freshnessPeriod) {
+                          @Named("block.publisher.freshness.period.ms") Value<Double> freshnessPeriod,
+                          @Named("block.publisher.delta.history.versions") Value<Integer> deltaHistoryVersions,
+                          @Named("block.publisher.coalesce.updates.enabled") Value<Boolean> coalesceUpdates,
+                          @Named("block.publisher.max.publishes.per.sec") Value<Integer> maxPublishesPerSec) {
+        this.deltaHistoryVersions = deltaHistoryVersions;
+        this.isCoalescing = coalesceUpdates.get();
+        this.maxPublishesPerSec = maxPublishesPerSec;
         BlocksSyncName blockSyncName = new BlocksSyncName(localConfig.getGameId(), localConfig.getPlayerName());
         publisher = factory.create(blockSyncName.getAsPrefix(), BlocksSyncName::new, freshnessPeriod);
 
@@ -50,29 +80,130 @@ public class BlockPublisher {
         blockPacketSizeHist = metrics.histogram(MetricNames.packetSizeHistogram(MetricNames.PacketSizeType.BLOCK));
     }
 
-    public void upsertBlock(BlockName blockName, Block block) {
-        localBlocksByName.put(blockName, block);
-        updateBlob();
+    public synchronized void upsertBlock(BlockName blockName, Block block) {
+        upsert(blockName, block);
+        publishOrDefer();
     }
 
-    public void upsertBatch(Map<BlockName, Block> blockUpdates) {
-        localBlocksByName.putAll(blockUpdates);
-        updateBlob();
+    public synchronized void upsertBatch(Map<BlockName, Block> blockUpdates) {
+        blockUpdates.forEach(this::upsert);
+        publishOrDefer();
     }
 
-    public void removeBlock(BlockName blockName) {
+    public synchronized void removeBlock(BlockName blockName) {
         localBlocksByName.remove(blockName);
-        updateBlob();
+        encodedBlocksByName.remove(blockName);
+        versionByName.remove(blockName);
+        removedVersionByName.put(blockName, version + 1);
+        publishOrDefer();
+    }
+
+    /**
+     * Publish any changes made since the last publish
+     * Called once per engine update when coalescing, changes are held back further to stay under the max rate
+     */
+    public synchronized void flushPendingUpdates() {
+        if (!hasPendingUpdates) {
+            return;
+        }
+
+        // Anything below 1 turns off rate limiting
+        int maxPublishes = maxPublishesPerSec.get();
+        long now = System.currentTimeMillis();
+        if (maxPublishes > 0 && now - lastPublishTime < 1000 / maxPublishes) {
+            return;
+        }
+
+        lastPublishTime = now;
+        publish();
     }
 
     public ConcurrentMap<BlockName, Block> getLocalBlocks() {
         return localBlocksByName;
     }
 
-    private void updateBlob() {
-        Blocks blocks = Blocks.newBuilder().addAllBlocks(localBlocksByName.values()).build();
-        blockPacketSizeHist.update(blocks.getSerializedSize());
-        publisher.updateLatestBlob(new Blob(blocks.toByteArray()));
+    /**
+     * Changes are stamped with the version about to be published before publishing it,
+     * so an interest can never be answered with a version whose changes aren't visible yet
+     */
+    private void upsert(BlockName blockName, Block block) {
+        localBlocksByName.put(blockName, block);
+        encodedBlocksByName.put(blockName, Blocks.newBuilder().addBlocks(block).build().toByteArray());
+        versionByName.put(blockName, version + 1);
+        removedVersionByName.remove(blockName);
+    }
+
+    private void publishOrDefer() {
+        if (isCoalescing) {
+            hasPendingUpdates = true;
+        } else {
+            publish();
+        }
+    }
+
+    private void publish() {
+        hasPendingUpdates = false;
+        version = publisher.updateLatestContent(this::blocksSince);
+
+        long oldestVersion = Math.max(0, version - deltaHistoryVersions.get());
+        if (oldestVersion > oldestDeltaVersion) {
+            oldestDeltaVersion = oldestVersion;
+            removedVersionByName.values().removeIf(v -> v <= oldestVersion);
+        }
+    }
+
+    /**
+     * Build the blocks to send to a consumer which last saw sequenceNumberSeen
+     * This reads the live blocks rather than those of a particular version, so it may include changes from versions
+     * after the one it's sent as. Consumers apply changes idempotently so these are simply sent again next time
+     */
+    private Blob blocksSince(long sequenceNumberSeen) {
+        List<byte[]> pieces = sequenceNumberSeen < oldestDeltaVersion ? null : changedBlocksSince(sequenceNumberSeen);
+
+        // Removals may have been forgotten while building the delta
+        if (pieces == null || sequenceNumberSeen < oldestDeltaVersion) {
+            pieces = new ArrayList<>(encodedBlocksByName.values());
+        }
+
+        return concatenate(pieces);
+    }
+
+    private List<byte[]> changedBlocksSince(long sequenceNumberSeen) {
+        List<byte[]> pieces = new ArrayList<>();
+        versionByName.forEach((blockName, blockVersion) -> {
+            byte[] encodedBlock = encodedBlocksByName.get(blockName);
+            if (blockVersion > sequenceNumberSeen && encodedBlock != null) {
+                pieces.add(encodedBlock);
+            }
+        });
+
+        Blocks.Builder trailer = Blocks.newBuilder().setIsDelta(true);
+        removedVersionByName.forEach((blockName, removedVersion) -> {
+            if (removedVersion > sequenceNumberSeen) {
+                trailer.addRemovedIds(blockName.getId());
+            }
+        });
+        pieces.add(trailer.build().toByteArray());
+
+        return pieces;
+    }
+
+    /**
+     * Concatenated protobuf messages parse as one message with their repeated fields appended,
+     * so the Blocks message is assembled from the cached encodings without re-encoding any block
+     */
+    private Blob concatenate(List<byte[]> pieces) {
+        int size = 0;
+        for (byte[] piece : pieces) {
+            size += piece.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        pieces.forEach(buffer::put);
+        buffer.flip();
+
+        blockPacketSizeHist.update(size);
+        return new Blob(buffer, false);
     }
 
     private void onInteractionInterest(Name prefix, Interest interest, Face face, long interestFilterId, InterestFilter filter) {
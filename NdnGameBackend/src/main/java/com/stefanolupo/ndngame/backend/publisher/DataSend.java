@@ -1,30 +1,34 @@
 package com.stefanolupo.ndngame.backend.publisher;
 
-import com.stefanolupo.ndngame.names.SequenceNumberedName;
 import net.named_data.jndn.Face;
+import net.named_data.jndn.Name;
 import net.named_data.jndn.util.Blob;
 
+/**
+ * An already wire encoded Data packet and the face to send it on
+ * The same encoding may be shared between many DataSends
+ */
 public class DataSend {
 
     private final Face face;
-    private final SequenceNumberedName name;
-    private final Blob blob;
+    private final Name name;
+    private final Blob encoding;
 
-    public DataSend(Face face, SequenceNumberedName name, Blob blob) {
+    public DataSend(Face face, Name name, Blob encoding) {
         this.face = face;
         this.name = name;
-        this.blob = blob;
+        this.encoding = encoding;
     }
 
     public Face getFace() {
         return face;
     }
 
-    public SequenceNumberedName getName() {
+    public Name getName() {
         return name;
     }
 
-    public Blob getBlob() {
-        return blob;
+    public Blob getEncoding() {
+        return encoding;
     }
 }
@@ -0,0 +1,134 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.hubspot.liveconfig.value.Value;
+import com.stefanolupo.ndngame.backend.annotations.BackendMetrics;
+import com.stefanolupo.ndngame.backend.executors.ExecutorManager;
+import com.stefanolupo.ndngame.metrics.MetricNames;
+import net.named_data.jndn.Face;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends publishers' data on a small pool of threads shared by all of them
+ * Each face gets its own bounded queue which is drained by at most one thread at a time,
+ * so sends to a face are serialized without locking and are sent in batches
+ * Sends arriving at a full queue are dropped, the consumer will retransmit its interest
+ */
+@Singleton
+public class DataSender {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataSender.class);
+
+    private final ExecutorService executor;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final ConcurrentMap<Face, FaceQueue> queuesByFace = new ConcurrentHashMap<>();
+
+    private final Histogram queueDepth;
+    private final Timer sendLatency;
+    private final Meter dropped;
+
+    @Inject
+    public DataSender(ExecutorManager executorManager,
+                      @BackendMetrics MetricRegistry metrics,
+                      @Named("data.sender.threads") Value<Integer> numThreads,
+                      @Named("data.sender.queue.capacity") Value<Integer> queueCapacity,
+                      @Named("data.sender.batch.size") Value<Integer> batchSize) {
+        this.executor = executorManager.getSender("data-sender", numThreads.get());
+        this.queueCapacity = queueCapacity.get();
+        this.batchSize = batchSize.get();
+        this.queueDepth = metrics.histogram(MetricNames.dataSenderQueueDepth());
+        this.sendLatency = metrics.timer(MetricNames.dataSenderLatency());
+        this.dropped = metrics.meter(MetricNames.dataSenderDropped());
+    }
+
+    /**
+     * Queue dataSend behind anything else waiting to be sent on its face
+     */
+    public void send(DataSend dataSend) {
+        queuesByFace.computeIfAbsent(dataSend.getFace(), face -> new FaceQueue()).offer(dataSend);
+    }
+
+    /**
+     * Send dataSend on the calling thread
+     */
+    public void sendNow(DataSend dataSend) {
+        try {
+            dataSend.getFace().send(dataSend.getEncoding());
+        } catch (Exception e) {
+            LOG.error("Unable to send data to satisfy interest " + dataSend.getName(), e);
+        }
+    }
+
+    private final class FaceQueue implements Runnable {
+        private final Queue<QueuedSend> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean isDrainScheduled = new AtomicBoolean(false);
+
+        void offer(DataSend dataSend) {
+            int newDepth = depth.incrementAndGet();
+            if (newDepth > queueCapacity) {
+                depth.decrementAndGet();
+                dropped.mark();
+                return;
+            }
+
+            queueDepth.update(newDepth);
+            queue.add(new QueuedSend(dataSend, System.nanoTime()));
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (isDrainScheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * Sends at most one batch so a busy face can't starve the others sharing the pool
+         */
+        @Override
+        public void run() {
+            QueuedSend queuedSend;
+            int sent = 0;
+            while (sent < batchSize && (queuedSend = queue.poll()) != null) {
+                depth.decrementAndGet();
+                sendNow(queuedSend.dataSend);
+                sendLatency.update(System.nanoTime() - queuedSend.queuedAtNanos, TimeUnit.NANOSECONDS);
+                sent++;
+            }
+
+            // Cleared before checking for more so a send queued in between is never stranded
+            isDrainScheduled.set(false);
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private static final class QueuedSend {
+        private final DataSend dataSend;
+        private final long queuedAtNanos;
+
+        QueuedSend(DataSend dataSend, long queuedAtNanos) {
+            this.dataSend = dataSend;
+            this.queuedAtNanos = queuedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.RatioGauge;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Spots interests for a sequence number which was already requested within the last window
+ * Sequence numbers are tracked in a fixed size ring indexed by sequence number and counts are kept in
+ * one bucket per second of the window, so memory stays bounded however long the session runs
+ * As a gauge it gives the fraction of interests in the window which were duplicates, read from running totals
+ * which are only moved on as interests come in, so while none do the gauge holds the last window's ratio
+ * until that window has passed altogether
+ */
+class DuplicateRequestDetector extends RatioGauge {
+
+    private final int windowSeconds;
+    private final Meter duplicatesMeter;
+    private final LongSupplier clockMs;
+
+    // Slot is the sequence number modulo the number of slots
+    private final long[] sequenceNumbers;
+    private final long[] requestedAtSeconds;
+
+    // Bucket is the second modulo windowSeconds
+    private final long[] requestsByBucket;
+    private final long[] duplicatesByBucket;
+    private volatile long latestSecond = -1;
+
+    // Sums over the buckets in the window, read by the gauge without taking the lock
+    private volatile long requestsInWindow = 0;
+    private volatile long duplicatesInWindow = 0;
+
+    DuplicateRequestDetector(int windowSeconds, int trackedSequenceNumbers, Meter duplicatesMeter) {
+        this(windowSeconds, trackedSequenceNumbers, duplicatesMeter, System::currentTimeMillis);
+    }
+
+    DuplicateRequestDetector(int windowSeconds, int trackedSequenceNumbers, Meter duplicatesMeter, LongSupplier clockMs) {
+        this.windowSeconds = windowSeconds;
+        this.duplicatesMeter = duplicatesMeter;
+        this.clockMs = clockMs;
+
+        this.sequenceNumbers = new long[trackedSequenceNumbers];
+        this.requestedAtSeconds = new long[trackedSequenceNumbers];
+        Arrays.fill(sequenceNumbers, -1);
+
+        this.requestsByBucket = new long[windowSeconds];
+        this.duplicatesByBucket = new long[windowSeconds];
+    }
+
+    /**
+     * Record an interest for sequenceNumber
+     * @return true if sequenceNumber was already requested within the window
+     */
+    synchronized boolean record(long sequenceNumber) {
+        long nowSeconds = clockMs.getAsLong() / 1000;
+
+        int slot = (int) Math.floorMod(sequenceNumber, (long) sequenceNumbers.length);
+        boolean isDuplicate = sequenceNumbers[slot] == sequenceNumber
+                && nowSeconds - requestedAtSeconds[slot] < windowSeconds;
+        sequenceNumbers[slot] = sequenceNumber;
+        requestedAtSeconds[slot] = nowSeconds;
+
+        advanceTo(nowSeconds);
+        int bucket = (int) (nowSeconds % windowSeconds);
+        requestsByBucket[bucket]++;
+        requestsInWindow++;
+
+        if (isDuplicate) {
+            duplicatesByBucket[bucket]++;
+            duplicatesInWindow++;
+            duplicatesMeter.mark();
+        }
+
+        return isDuplicate;
+    }
+
+    @Override
+    protected Ratio getRatio() {
+        if (clockMs.getAsLong() / 1000 - latestSecond >= windowSeconds) {
+            return Ratio.of(0, 0);
+        }
+        return Ratio.of(duplicatesInWindow, requestsInWindow);
+    }
+
+    /**
+     * Empty the buckets of every second since the latest one which has rotated out of the window,
+     * taking their counts off the running sums
+     */
+    private void advanceTo(long nowSeconds) {
+        if (nowSeconds <= latestSecond) {
+            return;
+        }
+
+        long firstSecond = Math.max(latestSecond + 1, nowSeconds - windowSeconds + 1);
+        for (long second = firstSecond; second <= nowSeconds; second++) {
+            int bucket = (int) (second % windowSeconds);
+            duplicatesInWindow -= duplicatesByBucket[bucket];
+            requestsInWindow -= requestsByBucket[bucket];
+            duplicatesByBucket[bucket] = 0;
+            requestsByBucket[bucket] = 0;
+        }
+        latestSecond = nowSeconds;
+    }
+}
@@ -0,0 +1,26 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import net.named_data.jndn.Name;
+import net.named_data.jndn.util.Blob;
+
+/**
+ * A wire encoded Data packet along with its name
+ */
+final class EncodedData {
+
+    private final Name name;
+    private final Blob encoding;
+
+    EncodedData(Name name, Blob encoding) {
+        this.name = name;
+        this.encoding = encoding;
+    }
+
+    Name getName() {
+        return name;
+    }
+
+    Blob getEncoding() {
+        return encoding;
+    }
+}
@@ -0,0 +1,161 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.Meter;
+import com.stefanolupo.ndngame.backend.executors.HashedWheelTimer;
+import com.stefanolupo.ndngame.names.SequenceNumberedName;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Interests waiting on a publisher, ordered by the sequence number their consumer last saw
+ * Answering an update only touches the interests which are actually behind it
+ * Interests are dropped once their lifetime runs out, as by then NFD has dropped them too
+ */
+class PendingInterestTable {
+
+    private static final Name LOWEST_NAME = new Name();
+
+    // Used when an interest doesn't set its lifetime, as NFD does
+    private static final long DEFAULT_INTEREST_LIFETIME_MS = 4000;
+
+    private final ConcurrentSkipListMap<Key, PendingInterest> pendingInterests = new ConcurrentSkipListMap<>();
+    private final HashedWheelTimer timer;
+    private final Meter evictions;
+    private final Meter staleSendsAvoided;
+
+    /**
+     * @param evictions marked for each interest dropped because its lifetime ran out
+     * @param staleSendsAvoided marked for each interest dropped without being answered,
+     *                          i.e. evictions and interests replaced by a retransmission
+     */
+    PendingInterestTable(HashedWheelTimer timer, Meter evictions, Meter staleSendsAvoided) {
+        this.timer = timer;
+        this.evictions = evictions;
+        this.staleSendsAvoided = staleSendsAvoided;
+    }
+
+    /**
+     * Park an interest until it's drained or its lifetime runs out
+     * A retransmission of a pending interest (same name, new nonce) replaces it and restarts its lifetime
+     */
+    void add(SequenceNumberedName name, Interest interest, Face face) {
+        Key key = new Key(name.getLatestSequenceNumberSeen(), interest.getName());
+        PendingInterest pendingInterest = new PendingInterest(name, face);
+
+        double lifetime = interest.getInterestLifetimeMilliseconds();
+        long lifetimeMs = lifetime < 0 ? DEFAULT_INTEREST_LIFETIME_MS : (long) lifetime;
+        pendingInterest.timeout = timer.newTimeout(() -> expire(key, pendingInterest), lifetimeMs, TimeUnit.MILLISECONDS);
+
+        PendingInterest replaced = pendingInterests.put(key, pendingInterest);
+        if (replaced != null && replaced.timeout.cancel()) {
+            staleSendsAvoided.mark();
+        }
+    }
+
+    /**
+     * Remove every interest whose last seen sequence number is below sequenceNumber and pass it to consumer
+     */
+    void drainBehind(long sequenceNumber, BiConsumer<SequenceNumberedName, Face> consumer) {
+        ConcurrentNavigableMap<Key, PendingInterest> behind =
+                pendingInterests.headMap(new Key(sequenceNumber, LOWEST_NAME), false);
+
+        Map.Entry<Key, PendingInterest> entry;
+        while ((entry = behind.pollFirstEntry()) != null) {
+            PendingInterest pendingInterest = entry.getValue();
+            pendingInterest.timeout.cancel();
+            consumer.accept(pendingInterest.name, pendingInterest.face);
+        }
+    }
+
+    /**
+     * Remove every interest whose last seen sequence number is below sequenceNumber and matches filter
+     * and pass it to consumer, in ascending order of last seen sequence number
+     * The rest stay parked
+     */
+    void drainBehind(long sequenceNumber, LongPredicate filter, BiConsumer<SequenceNumberedName, Face> consumer) {
+        ConcurrentNavigableMap<Key, PendingInterest> behind =
+                pendingInterests.headMap(new Key(sequenceNumber, LOWEST_NAME), false);
+
+        for (Map.Entry<Key, PendingInterest> entry : behind.entrySet()) {
+            PendingInterest pendingInterest = entry.getValue();
+            if (filter.test(entry.getKey().sequenceNumber) && behind.remove(entry.getKey(), pendingInterest)) {
+                pendingInterest.timeout.cancel();
+                consumer.accept(pendingInterest.name, pendingInterest.face);
+            }
+        }
+    }
+
+    /**
+     * Visit each distinct sequence number last seen by a pending interest in ascending order
+     * without copying the table, stopping early once visitor returns false
+     */
+    void forEachSequenceNumberSeen(LongPredicate visitor) {
+        long lastVisited = -1;
+        for (Key key : pendingInterests.keySet()) {
+            if (key.sequenceNumber == lastVisited) {
+                continue;
+            }
+
+            lastVisited = key.sequenceNumber;
+            if (!visitor.test(key.sequenceNumber)) {
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return pendingInterests.size();
+    }
+
+    private void expire(Key key, PendingInterest pendingInterest) {
+        if (pendingInterests.remove(key, pendingInterest)) {
+            evictions.mark();
+            staleSendsAvoided.mark();
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final long sequenceNumber;
+        private final Name interestName;
+
+        Key(long sequenceNumber, Name interestName) {
+            this.sequenceNumber = sequenceNumber;
+            this.interestName = interestName;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int bySequenceNumber = Long.compare(sequenceNumber, other.sequenceNumber);
+            return bySequenceNumber != 0 ? bySequenceNumber : interestName.compare(other.interestName);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && compareTo((Key) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(sequenceNumber) + interestName.hashCode();
+        }
+    }
+
+    private static final class PendingInterest {
+        private final SequenceNumberedName name;
+        private final Face face;
+        private HashedWheelTimer.Timeout timeout;
+
+        PendingInterest(SequenceNumberedName name, Face face) {
+            this.name = name;
+            this.face = face;
+        }
+    }
+}
@@ -2,8 +2,6 @@ package com.stefanolupo.ndngame.backend.publisher;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
@@ -19,8 +17,8 @@ import net.named_data.jndn.util.Blob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
 
 @Singleton
 public class PlayerStatusPublisher {
@@ -31,55 +29,75 @@ public class PlayerStatusPublisher {
     private final LocalPlayerReference localPlayerReference;
 
     /**
-     * Keep a cache of the local player's recent status by their sequence number
+     * Ring of the local player's recent statuses, indexed by sequence number % history size
      * This is used by the dead reckoning system to approximate the local player's position on remote machines
+     * Only touched by the engine thread
      */
-    private final Cache<Long, PlayerStatusWithTime> playerStatusBySequenceNumber = CacheBuilder.newBuilder()
-            .maximumSize(50)
-            .concurrencyLevel(1)
-            .build();
-
+    private final long[] sequenceNumbers;
+    private final PlayerStatus[] statuses;
+    private final long[] publishedAtMs;
 
     @Inject
     public PlayerStatusPublisher(LocalConfig localConfig,
                                  BasePublisherFactory factory,
                                  LocalPlayerReference localPlayerReference,
                                  @BackendMetrics MetricRegistry metrics,
-                                 @Named("player.status.publisher.freshness.period.ms") Value<Double> freshnessPeriod) {
+                                 @Named("player.status.publisher.freshness.period.ms") Value<Double> freshnessPeriod,
+                                 @Named("player.status.publisher.history.size") Value<Integer> historySize) {
         this.localPlayerReference = localPlayerReference;
+        this.sequenceNumbers = new long[historySize.get()];
+        this.statuses = new PlayerStatus[historySize.get()];
+        this.publishedAtMs = new long[historySize.get()];
+        Arrays.fill(sequenceNumbers, -1);
+
         PlayerStatusName playerStatusName = new PlayerStatusName(localConfig.getGameId(), localConfig.getPlayerName());
         publisher = factory.create(playerStatusName.getListenName(), PlayerStatusName::new, freshnessPeriod);
         playerStatusPacketSizeHist = metrics.histogram(MetricNames.packetSizeHistogram(MetricNames.PacketSizeType.STATUS));
     }
 
     public void updateLocalPlayerStatus(PlayerStatus playerStatus) {
+        updateLocalPlayerStatus(playerStatus, PublishedSnapshot.ANSWER_ALL);
+    }
+
+    /**
+     * Publish playerStatus but only send it to some consumers, the rest keep waiting on the status they have
+     * @param shouldAnswer whether a consumer which last saw a sequence number should be sent playerStatus
+     */
+    public void updateLocalPlayerStatus(PlayerStatus playerStatus, LongPredicate shouldAnswer) {
         playerStatusPacketSizeHist.update(playerStatus.getSerializedSize());
-        long nextSequenceNumber = publisher.updateLatestBlob(new Blob(playerStatus.toByteArray()));
+        long nextSequenceNumber = publisher.updateLatestBlob(new Blob(playerStatus.toByteArray()), shouldAnswer);
         localPlayerReference.setPlayerStatus(playerStatus);
-        playerStatusBySequenceNumber.put(nextSequenceNumber, new PlayerStatusWithTime(playerStatus, System.currentTimeMillis()));
+        int index = indexOf(nextSequenceNumber);
+        sequenceNumbers[index] = nextSequenceNumber;
+        statuses[index] = playerStatus;
+        publishedAtMs[index] = System.currentTimeMillis();
     }
 
     /**
-     * For all of the publisher's outstanding interests, link their last seen sequence numbers to
-     * the relevant player status. This is used by the dead reckoning system to determine when to publish an update
-     * for the local players position
+     * Visit each distinct sequence number last seen by consumers with interests outstanding, until visitor returns false
+     * This is used by the dead reckoning system to determine when to publish an update for the local players position,
+     * the status each consumer has can be looked up with {@link #getStatus(long)}
      */
-    public List<PlayerStatusWithTime> getPlayerStatusesForOutstandingInterests() {
-        return publisher.getOutstandingInterests().stream()
-                .map(k -> {
-                    PlayerStatusName name = (PlayerStatusName) k;
-                    return playerStatusBySequenceNumber.getIfPresent(name.getLatestSequenceNumberSeen());
-                })
-                .collect(Collectors.toList());
+    public void forEachOutstandingSequenceNumberSeen(LongPredicate visitor) {
+        publisher.forEachOutstandingSequenceNumberSeen(visitor);
     }
 
-    public class PlayerStatusWithTime {
-        public final PlayerStatus playerStatus;
-        public final long timeStamp;
+    /**
+     * @return the status published as sequenceNumber or null if it's no longer in the history
+     */
+    public PlayerStatus getStatus(long sequenceNumber) {
+        int index = indexOf(sequenceNumber);
+        return sequenceNumbers[index] == sequenceNumber ? statuses[index] : null;
+    }
+
+    /**
+     * @return when the status published as sequenceNumber was published, only valid if it's still in the history
+     */
+    public long getPublishedAtMs(long sequenceNumber) {
+        return publishedAtMs[indexOf(sequenceNumber)];
+    }
 
-        PlayerStatusWithTime(PlayerStatus playerStatus, long timeStamp) {
-            this.playerStatus = playerStatus;
-            this.timeStamp = timeStamp;
-        }
+    private int indexOf(long sequenceNumber) {
+        return (int) Math.floorMod(sequenceNumber, (long) sequenceNumbers.length);
     }
 }
@@ -0,0 +1,66 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.Counter;
+import com.hubspot.liveconfig.value.Value;
+import net.named_data.jndn.Name;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded store of the Data packets a publisher has already encoded, keyed by canonical (unsegmented) Data name
+ * Evicts the least recently used entry once full, and never serves entries older than the freshness period
+ */
+class ProducerContentStore {
+
+    private final Value<Double> freshnessPeriod;
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<Name, StoredData> entriesByName;
+
+    ProducerContentStore(int capacity, Value<Double> freshnessPeriod, Counter hits, Counter misses) {
+        this.freshnessPeriod = freshnessPeriod;
+        this.hits = hits;
+        this.misses = misses;
+        this.entriesByName = new LinkedHashMap<Name, StoredData>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Name, StoredData> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the stored Data for name, or null if there isn't any fresh Data for it
+     */
+    synchronized EncodedData get(Name name) {
+        StoredData entry = entriesByName.get(name);
+        if (entry == null) {
+            misses.inc();
+            return null;
+        }
+
+        if (System.currentTimeMillis() - entry.insertTime > freshnessPeriod.get()) {
+            entriesByName.remove(name);
+            misses.inc();
+            return null;
+        }
+
+        hits.inc();
+        return entry.encodedData;
+    }
+
+    synchronized void put(Name name, EncodedData encodedData) {
+        entriesByName.put(name, new StoredData(encodedData, System.currentTimeMillis()));
+    }
+
+    private static final class StoredData {
+        private final EncodedData encodedData;
+        private final long insertTime;
+
+        StoredData(EncodedData encodedData, long insertTime) {
+            this.encodedData = encodedData;
+            this.insertTime = insertTime;
+        }
+    }
+}
@@ -3,15 +3,17 @@ package com.stefanolupo.ndngame.backend.publisher;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.hubspot.liveconfig.value.Value;
 import com.stefanolupo.ndngame.backend.annotations.BackendMetrics;
+import com.stefanolupo.ndngame.backend.executors.ExecutorManager;
+import com.stefanolupo.ndngame.backend.executors.HashedWheelTimer;
 import com.stefanolupo.ndngame.backend.ndn.FaceManager;
 import com.stefanolupo.ndngame.config.LocalConfig;
 import com.stefanolupo.ndngame.metrics.MetricNames;
+import com.stefanolupo.ndngame.names.SequenceNumberedName;
 import com.stefanolupo.ndngame.names.projectiles.ProjectileName;
 import com.stefanolupo.ndngame.names.projectiles.ProjectilesSyncName;
 import com.stefanolupo.ndngame.protos.Projectile;
@@ -21,8 +23,7 @@ import net.named_data.jndn.util.Blob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
@@ -37,16 +38,25 @@ public class ProjectilePublisher {
 
     private final Supplier<Meter> interestMeterDelayedSupplier;
     private Meter interestMeter;
-    private final ConcurrentMap<ProjectilesSyncName, Face> outstandingInterests = new ConcurrentHashMap<>();
-    private final SequenceNumberedCache<Projectile> projectileCache;
+    private final PendingInterestTable outstandingInterests;
+    private final SequenceNumberedRingBuffer<Projectile> projectileCache;
     private final Value<Double> freshnessPeriod;
     private final Histogram projectilesPacketSizeHist;
 
     private final Consumer<DataSend> dataSendConsumer;
 
+    // Encodings are only valid while the cache's max sequence number is encodedForMaxSequenceNumber
+    // Only touched by the scheduler thread
+    private final Map<Long, Blob> payloadByFirstSequenceNumber = new HashMap<>();
+    private final Map<Long, EncodedData> encodedDataBySequenceNumberSeen = new HashMap<>();
+    private long encodedForMaxSequenceNumber = -1;
+
     @Inject
     public ProjectilePublisher(LocalConfig localConfig,
                                FaceManager faceManager,
+                               ExecutorManager executorManager,
+                               HashedWheelTimer timer,
+                               DataSender dataSender,
                                @BackendMetrics MetricRegistry metrics,
                                @Named("projectile.publisher.queue.process.per.sec") Value<Long> queueProcPerSec,
                                @Named("projectile.publisher.queue.process.multithread") Value<Boolean> queueProcMultithread,
@@ -54,34 +64,22 @@ public class ProjectilePublisher {
                                @Named("projectile.publisher.freshness.period.ms") Value<Double> freshnessPeriod) {
         this.freshnessPeriod = freshnessPeriod;
         projectilesPacketSizeHist = metrics.histogram(MetricNames.packetSizeHistogram(MetricNames.PacketSizeType.PROJECTILE));
-        projectileCache = SequenceNumberedCache.getInstance(cacheSize.get());
-        if (queueProcMultithread.get()) {
-            ThreadFactory factory = new ThreadFactoryBuilder()
-                    .setNameFormat("projectile-publisher-sender")
-                    .build();
-            ExecutorService executorService = Executors.newCachedThreadPool(factory);
-            dataSendConsumer = (ds -> CompletableFuture.runAsync(() -> doSendData(ds), executorService)
-                        .exceptionally(e -> {
-                            LOG.error("Unable to send projectile update", e);
-                            return null;
-                        })
-            );
-        } else {
-            dataSendConsumer = this::doSendData;
-        }
+        projectileCache = SequenceNumberedRingBuffer.getInstance(cacheSize.get());
+        dataSendConsumer = queueProcMultithread.get() ? dataSender::send : dataSender::sendNow;
 
         ProjectilesSyncName projectilesSyncName = new ProjectilesSyncName(localConfig.getGameId(), localConfig.getPlayerName());
         this.interestMeterDelayedSupplier = () ->  metrics.meter(MetricNames.basePublisherInterestRate(projectilesSyncName.getAsPrefix()));
+        this.outstandingInterests = new PendingInterestTable(
+                timer,
+                metrics.meter(MetricNames.pendingInterestEvictions(projectilesSyncName.getAsPrefix())),
+                metrics.meter(MetricNames.pendingInterestStaleSendsAvoided(projectilesSyncName.getAsPrefix())));
 
         faceManager.registerBasicPrefix(projectilesSyncName.getAsPrefix(), this::onSyncInterest);
 
         ProjectileName projectileName = new ProjectileName(localConfig.getGameId(), localConfig.getPlayerName());
         faceManager.registerBasicPrefix(projectileName.getAsPrefix(), this::onInteractionInterest);
 
-        ThreadFactory threadFactory = new ThreadFactoryBuilder()
-                .setNameFormat("projectile-publisher-%d")
-                .build();
-        Executors.newSingleThreadScheduledExecutor(threadFactory).scheduleAtFixedRate(
+        executorManager.getScheduler("projectile-publisher").scheduleAtFixedRate(
                 this::processOutstandingInterests,
                 0, MICRO_SECONDS_PER_SEC / queueProcPerSec.get(), TimeUnit.MICROSECONDS
         );
@@ -98,37 +96,46 @@ public class ProjectilePublisher {
     }
 
     private void processOutstandingInterests() {
-        for (Iterator<Map.Entry<ProjectilesSyncName, Face>> it = outstandingInterests.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<ProjectilesSyncName, Face> entry = it.next();
-            ProjectilesSyncName name = entry.getKey();
-            Face face = entry.getValue();
+        long maxSequenceNumber = projectileCache.getMaxSequenceNumber();
+        if (maxSequenceNumber != encodedForMaxSequenceNumber) {
+            payloadByFirstSequenceNumber.clear();
+            encodedDataBySequenceNumberSeen.clear();
+            encodedForMaxSequenceNumber = maxSequenceNumber;
+        }
 
+        outstandingInterests.drainBehind(maxSequenceNumber, (name, face) -> {
             long sequenceNumber = name.getLatestSequenceNumberSeen();
-            if (sequenceNumber >= projectileCache.getMaxVal()) continue;
+            EncodedData encodedData = encodedDataBySequenceNumberSeen.get(sequenceNumber);
+            if (encodedData == null) {
+                encodedData = encodeData(name, maxSequenceNumber);
+                encodedDataBySequenceNumberSeen.put(sequenceNumber, encodedData);
+            }
+
+            dataSendConsumer.accept(new DataSend(face, encodedData.getName(), encodedData.getEncoding()));
+        });
+    }
 
-            Projectiles projectiles = Projectiles.newBuilder()
-                .addAllProjectiles(projectileCache.getFrom(sequenceNumber + 1))
-                .build();
+    /**
+     * Every consumer which last saw the same sequence number gets the same Data packet,
+     * and consumers behind the oldest cached projectile all get the same payload
+     */
+    private EncodedData encodeData(SequenceNumberedName name, long maxSequenceNumber) {
+        long firstSequenceNumber = Math.max(name.getLatestSequenceNumberSeen() + 1, projectileCache.getMinSequenceNumber());
+        Blob payload = payloadByFirstSequenceNumber.get(firstSequenceNumber);
+        if (payload == null) {
+            Projectiles.Builder builder = Projectiles.newBuilder();
+            projectileCache.forEachInRange(firstSequenceNumber, maxSequenceNumber, builder::addProjectiles);
+            Projectiles projectiles = builder.build();
             projectilesPacketSizeHist.update(projectiles.getSerializedSize());
-            Blob blob = new Blob(projectiles.toByteArray());
-
-            dataSendConsumer.accept(new DataSend(face, name, blob));
-            it.remove();
+            payload = new Blob(projectiles.toByteArray());
+            payloadByFirstSequenceNumber.put(firstSequenceNumber, payload);
         }
-    }
 
-    private void doSendData(DataSend dataSend) {
-        dataSend.getName().setNextSequenceNumber(projectileCache.getMaxVal());
-        long now = System.currentTimeMillis();
-        dataSend.getName().setUpdateTimestamp(now);
-        Data data = new Data(dataSend.getName().getFullName()).setContent(dataSend.getBlob());
+        name.setNextSequenceNumber(maxSequenceNumber);
+        name.setUpdateTimestamp(System.currentTimeMillis());
+        Data data = new Data(name.getFullName()).setContent(payload);
         data.getMetaInfo().setFreshnessPeriod(freshnessPeriod.get());
-        try {
-            dataSend.getFace().putData(data);
-        } catch (IOException e) {
-            LOG.error("Got error sending projectile data {}", e);
-            throw new RuntimeException(e);
-        }
+        return new EncodedData(data.getName(), data.wireEncode());
     }
 
     private void onSyncInterest(Name prefix, Interest interest, Face face, long interestFilterId, InterestFilter filter) {
@@ -138,6 +145,6 @@ public class ProjectilePublisher {
         }
         interestMeter.mark();
         ProjectilesSyncName syncName = new ProjectilesSyncName(interest);
-        outstandingInterests.put(syncName, face);
+        outstandingInterests.add(syncName, interest, face);
     }
 }
@@ -0,0 +1,70 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import net.named_data.jndn.util.Blob;
+
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * An immutable version of a publisher's content
+ * Swapped in whole so readers always see a sequence number together with the content it belongs to
+ */
+final class PublishedSnapshot {
+
+    static final LongPredicate ANSWER_ALL = sequenceNumberSeen -> true;
+    static final PublishedSnapshot EMPTY = new PublishedSnapshot(0, sequenceNumberSeen -> null, ANSWER_ALL, -1);
+
+    private final long sequenceNumber;
+    private final LongFunction<Blob> contentBySequenceNumberSeen;
+    private final LongPredicate shouldAnswer;
+    private final long timestamp;
+
+    private PublishedSnapshot(long sequenceNumber,
+                              LongFunction<Blob> contentBySequenceNumberSeen,
+                              LongPredicate shouldAnswer,
+                              long timestamp) {
+        this.sequenceNumber = sequenceNumber;
+        this.contentBySequenceNumberSeen = contentBySequenceNumberSeen;
+        this.shouldAnswer = shouldAnswer;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return the snapshot following this one with the given content, answering only consumers
+     * which last saw a sequence number matching shouldAnswer
+     */
+    PublishedSnapshot next(LongFunction<Blob> contentBySequenceNumberSeen, LongPredicate shouldAnswer) {
+        return new PublishedSnapshot(sequenceNumber + 1, contentBySequenceNumberSeen, shouldAnswer, System.currentTimeMillis());
+    }
+
+    long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * @return the content to send a consumer which last saw sequenceNumberSeen
+     */
+    Blob getContent(long sequenceNumberSeen) {
+        return contentBySequenceNumberSeen.apply(sequenceNumberSeen);
+    }
+
+    /**
+     * @return whether a consumer which last saw sequenceNumberSeen should be sent this snapshot,
+     * those which shouldn't stay parked until a later snapshot says they should
+     */
+    boolean shouldAnswer(long sequenceNumberSeen) {
+        return sequenceNumberSeen < sequenceNumber && shouldAnswer.test(sequenceNumberSeen);
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "PublishedSnapshot{" +
+                "sequenceNumber=" + sequenceNumber +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,37 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.util.Blob;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits content too large for a single Data packet into segments named |name|/|segment_number|
+ * Every segment carries the last segment number as its FinalBlockId so consumers know how many to fetch
+ */
+final class Segmenter {
+
+    private Segmenter() {}
+
+    static List<Data> segment(Name name, Blob content, int segmentSize) {
+        ByteBuffer buffer = content.buf();
+        int numSegments = Math.max(1, (buffer.remaining() + segmentSize - 1) / segmentSize);
+        Name.Component finalBlockId = Name.Component.fromSegment(numSegments - 1);
+
+        List<Data> segments = new ArrayList<>(numSegments);
+        for (int segment = 0; segment < numSegments; segment++) {
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(buffer.position() + segment * segmentSize);
+            slice.limit(Math.min(slice.position() + segmentSize, buffer.limit()));
+
+            Data data = new Data(new Name(name).appendSegment(segment)).setContent(new Blob(slice.slice(), false));
+            data.getMetaInfo().setFinalBlockId(finalBlockId);
+            segments.add(data);
+        }
+
+        return segments;
+    }
+}
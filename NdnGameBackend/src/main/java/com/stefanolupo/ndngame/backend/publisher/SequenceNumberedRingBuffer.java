@@ -0,0 +1,123 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Fixed size buffer of the most recently inserted elements, each numbered by the order it was inserted in
+ * Single writer, any number of readers, with no locking on either side
+ * Each slot is guarded by its sequence number like a seqlock, so readers skip (rather than misread)
+ * slots the writer overwrote while they were reading them
+ */
+public class SequenceNumberedRingBuffer<T> {
+
+    private static final long WRITING = -1;
+
+    private final int capacity;
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLongArray sequenceNumbers;
+
+    // Published after the slot is written so readers never see a sequence number before its element
+    private volatile long maxSequenceNumber = -1;
+
+    private SequenceNumberedRingBuffer(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be positive");
+        this.capacity = capacity;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequenceNumbers = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequenceNumbers.set(i, WRITING);
+        }
+    }
+
+    public static <T> SequenceNumberedRingBuffer<T> getInstance(int capacity) {
+        return new SequenceNumberedRingBuffer<>(capacity);
+    }
+
+    /**
+     * Must only be called from a single thread
+     * @return the sequence number of the inserted element
+     */
+    public long insert(T element) {
+        long sequenceNumber = maxSequenceNumber + 1;
+        int index = indexOf(sequenceNumber);
+
+        sequenceNumbers.set(index, WRITING);
+        elements.set(index, element);
+        sequenceNumbers.set(index, sequenceNumber);
+
+        maxSequenceNumber = sequenceNumber;
+        return sequenceNumber;
+    }
+
+    /**
+     * Visit the elements with sequence numbers from fromSequenceNumber up to toSequenceNumber inclusive, in order
+     * Elements which are no longer buffered are skipped
+     * @return the number of elements visited
+     */
+    public int forEachInRange(long fromSequenceNumber, long toSequenceNumber, Consumer<? super T> consumer) {
+        long to = Math.min(toSequenceNumber, maxSequenceNumber);
+        long from = Math.max(fromSequenceNumber, getMinSequenceNumber(to));
+
+        int visited = 0;
+        for (long sequenceNumber = from; sequenceNumber <= to; sequenceNumber++) {
+            int index = indexOf(sequenceNumber);
+            if (sequenceNumbers.get(index) != sequenceNumber) {
+                continue;
+            }
+
+            T element = elements.get(index);
+
+            // Overwritten while we were reading it
+            if (sequenceNumbers.get(index) != sequenceNumber) {
+                continue;
+            }
+
+            consumer.accept(element);
+            visited++;
+        }
+
+        return visited;
+    }
+
+    /**
+     * Visit every buffered element with a sequence number from fromSequenceNumber on, in order
+     */
+    public int forEachFrom(long fromSequenceNumber, Consumer<? super T> consumer) {
+        return forEachInRange(fromSequenceNumber, maxSequenceNumber, consumer);
+    }
+
+    /**
+     * Copying version of {@link #forEachFrom(long, Consumer)}
+     */
+    public List<T> getFrom(long fromSequenceNumber) {
+        Preconditions.checkArgument(fromSequenceNumber >= 0, "Sequence number must be non negative");
+        List<T> list = new ArrayList<>();
+        forEachFrom(fromSequenceNumber, list::add);
+        return list;
+    }
+
+    /**
+     * @return the sequence number of the latest element, or -1 if nothing has been inserted
+     */
+    public long getMaxSequenceNumber() {
+        return maxSequenceNumber;
+    }
+
+    public long getMinSequenceNumber() {
+        return getMinSequenceNumber(maxSequenceNumber);
+    }
+
+    private long getMinSequenceNumber(long maxSequenceNumber) {
+        return Math.max(0, maxSequenceNumber - capacity + 1);
+    }
+
+    private int indexOf(long sequenceNumber) {
+        return (int) (sequenceNumber % capacity);
+    }
+}
@@ -5,18 +5,43 @@ import com.stefanolupo.ndngame.backend.subscriber.metrics.BaseSubscriberMetrics;
 import com.stefanolupo.ndngame.names.SequenceNumberedName;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.NetworkNack;
 import net.named_data.jndn.OnData;
+import net.named_data.jndn.OnNetworkNack;
 import net.named_data.jndn.OnTimeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.Function;
 
-public class BaseSubscriber<D> implements OnData, OnTimeout {
+/**
+ * Keeps up to windowSize interests outstanding for consecutive versions of a stream
+ * Data is applied strictly in version order as publishers may only send what changed since the version an interest saw
+ * Data which arrives ahead of a gap is held until the gap is filled, data no newer than what's applied is dropped
+ * Interest lifetimes and retransmissions follow the subscription's {@link RttEstimator}
+ * Timeouts and NACKs back off with jitter until Data comes in again, once per round however many of the window's
+ * interests failed, and a stream whose producer stays unreachable (e.g. the player left or is restarting)
+ * is only probed at a low rate until it's back
+ * There's at most one refill of the window pending at a time
+ * Staleness is measured from the producer's update timestamps, corrected by a {@link ClockOffsetEstimator}
+ */
+public class BaseSubscriber<D> implements OnData, OnTimeout, OnNetworkNack {
     private static final Logger LOG = LoggerFactory.getLogger(BaseSubscriber.class);
 
-    private static final long INTEREST_TIMEOUT_MS = 1000;
     private static final long MIN_SLEEP_TIME_TO_BOTHER_MS = 10;
+    private static final int SEGMENT_FETCH_WINDOW_SIZE = 8;
+    private static final long PROBE_AFTER_NO_ROUTE_FOR_MS = 10_000;
+    private static final long PROBE_INTERVAL_MS = 5_000;
+    private static final int CLOCK_OFFSET_SAMPLES = 64;
 
     private SequenceNumberedName name;
     private D entity;
@@ -24,76 +49,320 @@ public class BaseSubscriber<D> implements OnData, OnTimeout {
     private final Function<D, Long> sleepTimeFunction;
     private final Function<Data, SequenceNumberedName> nameExtractor;
     private final BaseSubscriberMetrics metrics;
+    private final int windowSize;
+    private final RttEstimator rttEstimator;
+    private final ClockOffsetEstimator clockOffsetEstimator = new ClockOffsetEstimator(CLOCK_OFFSET_SAMPLES);
+    private volatile long latestUpdateTimestamp = -1;
 
     private final FaceManager faceManager;
-    private long lastInterestExpressTime = 0;
-
+    private final Name streamName;
 
+    // Guarded by this
+    private long latestVersion;
+    private boolean receivedData = false;
+    private boolean isProbing = false;
+    private long noRouteSinceMs = -1;
+    private boolean isRefillScheduled = false;
+    private final Map<Long, Long> expressTimeBySequenceNumberSeen = new HashMap<>();
+    private final NavigableMap<Long, Data> dataAheadOfGap = new TreeMap<>();
+    // Versions whose interest timed out, their Data can't be matched to an expression to measure RTT (Karn's rule)
+    private final NavigableSet<Long> retransmittedSequenceNumbers = new TreeSet<>();
 
+    /**
+     * @param windowSize max number of interests outstanding for consecutive versions, 1 waits for each version in turn
+     */
     public BaseSubscriber(FaceManager faceManager,
                           SequenceNumberedName name,
                           Function<Data, D> dataFunction,
                           Function<Data, SequenceNumberedName> nameExtractor,
                           Function<D, Long> sleepTimeFunction,
-                          BaseSubscriberMetrics metrics) {
+                          BaseSubscriberMetrics metrics,
+                          int windowSize,
+                          RttEstimator rttEstimator) {
         this.faceManager = faceManager;
         this.name = name;
         this.dataFunction = dataFunction;
         this.nameExtractor = nameExtractor;
         this.sleepTimeFunction = sleepTimeFunction;
         this.metrics = metrics;
-        expressInterestSafe(buildInterest(name));
+        this.windowSize = Math.max(1, windowSize);
+        this.rttEstimator = rttEstimator;
+
+        // Interests are <stream>/<sequence number>, the stream name keeps them all on the same face
+        Interest initialInterest = buildInterest(name);
+        streamName = initialInterest.getName().getPrefix(-1);
+
+        // Only ask for one version until the publisher has told us where it's at
+        latestVersion = name.getNextSequenceNumber();
+        synchronized (this) {
+            expressTimeBySequenceNumberSeen.put(latestVersion, System.currentTimeMillis());
+        }
+        expressInterestSafe(initialInterest);
     }
 
     @Override
     public void onData(Interest interest, Data data) {
-        long now = System.currentTimeMillis();
-        long delta = now - lastInterestExpressTime;
-        metrics.getRoundTripTime().update(delta);
+        // Fetching any further segments isn't part of the round trip
+        long receiveTime = System.currentTimeMillis();
+        rttEstimator.resetBackOff();
+        Long expressTime;
+        synchronized (this) {
+            long sequenceNumberSeen = sequenceNumberSeen(interest);
+            Long expressedAt = expressTimeBySequenceNumberSeen.remove(sequenceNumberSeen);
+            expressTime = retransmittedSequenceNumbers.remove(sequenceNumberSeen) ? null : expressedAt;
+        }
 
-        entity = dataFunction.apply(data);
+        if (SegmentFetcher.isSegmented(data)) {
+            new SegmentFetcher(
+                    faceManager,
+                    streamName,
+                    data,
+                    SEGMENT_FETCH_WINDOW_SIZE,
+                    rttEstimator,
+                    completeData -> onCompleteData(completeData, expressTime, receiveTime),
+                    this::onSegmentFetchFailed
+            ).start();
+            return;
+        }
 
-        // Setup the name for the next data based on what came from publisher
-        name = nameExtractor.apply(data);
+        onCompleteData(data, expressTime, receiveTime);
+    }
 
-        long targetSleepTime = sleepTimeFunction.apply(entity);
+    private void onCompleteData(Data data, Long expressTime, long receiveTime) {
+        long delta = expressTime == null ? 0 : receiveTime - expressTime;
+        if (expressTime != null) {
+            metrics.getRoundTripTime().update(delta);
+        }
+
+        SequenceNumberedName dataName = nameExtractor.apply(data);
+        if (dataName.getUpdateTimestamp() > 0) {
+            clockOffsetEstimator.addDelay(receiveTime - dataName.getUpdateTimestamp());
+        }
+
+        // Producers hold interests until their next update, which says nothing about the network
+        // One already more than a version past what the interest saw answered it at once
+        if (expressTime != null && dataName.getNextSequenceNumber() > dataName.getLatestSequenceNumberSeen() + 1) {
+            rttEstimator.addMeasurement(delta);
+            clockOffsetEstimator.addRoundTripTime(delta);
+        }
+
+        boolean applied;
+        synchronized (this) {
+            if (dataName.getLatestSequenceNumberSeen() > latestVersion) {
+                // Only has what changed since a version we haven't applied yet
+                dataAheadOfGap.putIfAbsent(dataName.getLatestSequenceNumberSeen(), data);
+                return;
+            }
+
+            applied = apply(data, dataName);
 
-        long sleepTime = targetSleepTime - delta;
-        if (sleepTime > MIN_SLEEP_TIME_TO_BOTHER_MS) {
-            try {
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+            Map.Entry<Long, Data> ahead;
+            while ((ahead = dataAheadOfGap.firstEntry()) != null && ahead.getKey() <= latestVersion) {
+                dataAheadOfGap.pollFirstEntry();
+                apply(ahead.getValue(), nameExtractor.apply(ahead.getValue()));
             }
         }
 
-        expressInterestSafe(buildInterest(name));
+        if (!applied) {
+            refillAfter(0);
+            return;
+        }
+
+        long targetSleepTime = sleepTimeFunction.apply(entity);
+        refillAfter(targetSleepTime - delta);
+    }
+
+    /**
+     * Apply data which follows on from latestVersion unless it's no newer than it
+     * @return whether the data was applied
+     */
+    private boolean apply(Data data, SequenceNumberedName dataName) {
+        if (dataName.getNextSequenceNumber() <= latestVersion) {
+            metrics.getStaleDataCounter().inc();
+            return false;
+        }
+
+        entity = dataFunction.apply(data);
+
+        if (dataName.getUpdateTimestamp() > 0) {
+            latestUpdateTimestamp = dataName.getUpdateTimestamp();
+            long staleness = System.currentTimeMillis() - clockOffsetEstimator.toLocalTime(latestUpdateTimestamp);
+            metrics.getReceiveStaleness().update(staleness);
+        }
+
+        // Setup the name for the next data based on what came from publisher
+        name = dataName;
+        latestVersion = dataName.getNextSequenceNumber();
+        retransmittedSequenceNumbers.headSet(latestVersion).clear();
+        receivedData = true;
+        noRouteSinceMs = -1;
+        if (isProbing) {
+            LOG.info("{} is reachable again, resuming subscription", streamName.toUri());
+            isProbing = false;
+        }
+        return true;
     }
 
     public long getLatestVersionSeen() {
         return name == null ? - 1 : name.getLatestSequenceNumberSeen();
     }
 
+    /**
+     * @return when the producer made the update currently held, on our clock, or -1 before any
+     */
+    public long getLatestUpdateTimeMs() {
+        long updateTimestamp = latestUpdateTimestamp;
+        return updateTimestamp < 0 ? -1 : clockOffsetEstimator.toLocalTime(updateTimestamp);
+    }
+
     @Override
     public void onTimeout(Interest interest) {
 //        LOG.info("Timeout for {}, resending interest", interest.toUri());
-        expressInterestSafe(buildInterest(name));
+        metrics.getTimeoutsCounter().inc();
+        if (onInterestFailed(interest)) {
+            retransmitAfter(rttEstimator.onLoss());
+        }
+    }
+
+    @Override
+    public void onNetworkNack(Interest interest, NetworkNack networkNack) {
+        if (!onInterestFailed(interest)) {
+            return;
+        }
+
+        switch (networkNack.getReason()) {
+            case CONGESTION:
+                retransmitAfter(rttEstimator.onNack());
+                break;
+            case NO_ROUTE:
+                // Nobody is serving the stream (anymore), back off and eventually only probe for it
+                onNoRoute();
+                retransmitAfter(rttEstimator.onNack());
+                break;
+            default:
+                // e.g. a duplicate nonce, the interest just didn't make it so retry as if it had timed out
+                retransmitAfter(rttEstimator.onLoss());
+        }
+    }
+
+    /**
+     * The rest of the window most likely failed for the same reason, so only the first failure of a round
+     * backs off and schedules the refill which retransmits them all
+     * @return whether this was the first failure of the round, in which case the caller must {@link #retransmitAfter(long)}
+     */
+    private synchronized boolean onInterestFailed(Interest interest) {
+        long sequenceNumberSeen = sequenceNumberSeen(interest);
+        expressTimeBySequenceNumberSeen.remove(sequenceNumberSeen);
+        if (sequenceNumberSeen >= latestVersion) {
+            retransmittedSequenceNumbers.add(sequenceNumberSeen);
+        }
+
+        if (isRefillScheduled) {
+            return false;
+        }
+        isRefillScheduled = true;
+        return true;
+    }
+
+    /**
+     * Start probing once there's been no route for a while, the player may come back (e.g. after a restart)
+     */
+    private synchronized void onNoRoute() {
+        long now = System.currentTimeMillis();
+        if (noRouteSinceMs < 0) {
+            noRouteSinceMs = now;
+        }
+
+        if (!isProbing && now - noRouteSinceMs >= PROBE_AFTER_NO_ROUTE_FOR_MS) {
+            LOG.info("No route to {} for {}ms, probing every {}ms until it's back",
+                    streamName.toUri(), PROBE_AFTER_NO_ROUTE_FOR_MS, PROBE_INTERVAL_MS);
+            isProbing = true;
+        }
+    }
+
+    /**
+     * Fill the window after delayMs unless a refill is already pending, which will cover this one
+     */
+    private void refillAfter(long delayMs) {
+        synchronized (this) {
+            if (isRefillScheduled) {
+                return;
+            }
+            isRefillScheduled = delayMs > MIN_SLEEP_TIME_TO_BOTHER_MS;
+        }
+
+        if (delayMs > MIN_SLEEP_TIME_TO_BOTHER_MS) {
+            // Don't block the face's thread while waiting, it may be shared with other faces
+            faceManager.callLater(delayMs, this::onRefillDue);
+        } else {
+            fillWindow();
+        }
+    }
+
+    /**
+     * Refill the window once the backoff is over, only for the first failure of a round
+     */
+    private void retransmitAfter(long delayMs) {
+        long retransmissionDelayMs;
+        synchronized (this) {
+            retransmissionDelayMs = isProbing ? PROBE_INTERVAL_MS : delayMs;
+        }
+        faceManager.callLater(retransmissionDelayMs, this::onRefillDue);
+    }
+
+    private void onRefillDue() {
+        synchronized (this) {
+            isRefillScheduled = false;
+        }
+        fillWindow();
+    }
+
+    private void onSegmentFetchFailed() {
+        refillAfter(0);
     }
 
     public D getEntity() {
         return entity;
     }
 
+    /**
+     * Express interests for any of the next windowSize versions which don't have one outstanding
+     * A single interest is enough to probe for an unreachable producer
+     */
+    private void fillWindow() {
+        List<Interest> interests = new ArrayList<>(windowSize);
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            long windowEnd = latestVersion + (receivedData && !isProbing ? windowSize : 1);
+            for (long sequenceNumber = latestVersion; sequenceNumber < windowEnd; sequenceNumber++) {
+                if (expressTimeBySequenceNumberSeen.containsKey(sequenceNumber)) {
+                    continue;
+                }
+
+                expressTimeBySequenceNumberSeen.put(sequenceNumber, now);
+                if (receivedData) {
+                    name.setNextSequenceNumber(sequenceNumber);
+                }
+                interests.add(buildInterest(name));
+            }
+        }
+
+        interests.forEach(this::expressInterestSafe);
+    }
+
     private Interest buildInterest(SequenceNumberedName name) {
         return name.buildInterest()
                 .setMustBeFresh(true)
-                .setInterestLifetimeMilliseconds(INTEREST_TIMEOUT_MS)
+                .setInterestLifetimeMilliseconds(rttEstimator.getHeldInterestLifetimeMs())
                 .setCanBePrefix(true);
     }
 
     private void expressInterestSafe(Interest i) {
-        lastInterestExpressTime = System.currentTimeMillis();
-        faceManager.expressInterestSafe(i, this, this);
+        faceManager.expressInterestSafe(i, this, this, this, streamName);
         metrics.getInterestsExpressedCounter().inc();
     }
+
+    private static long sequenceNumberSeen(Interest interest) {
+        return Long.parseLong(interest.getName().get(-1).toEscapedString());
+    }
 }
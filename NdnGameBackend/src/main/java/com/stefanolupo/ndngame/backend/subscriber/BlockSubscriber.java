@@ -21,7 +21,6 @@ import net.named_data.jndn.Interest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -36,28 +35,37 @@ public class BlockSubscriber implements OnPlayersDiscovered {
     private final LocalConfig localConfig;
     private final FaceManager faceManager;
     private final BaseSubscriberMetricsFactory metricsFactory;
+    private final RttEstimatorFactory rttEstimatorFactory;
     private final Value<Long> waitTime;
+    private final Value<Integer> windowSize;
 
     @Inject
     public BlockSubscriber(LocalConfig localConfig,
                            FaceManager faceManager,
                            BaseSubscriberMetricsFactory metricsFactory,
-                           @Named("block.sub.inter.interest.max.wait.time.ms") Value<Long> maxWaitTime) {
+                           RttEstimatorFactory rttEstimatorFactory,
+                           @Named("block.sub.inter.interest.max.wait.time.ms") Value<Long> maxWaitTime,
+                           @Named("block.sub.interest.window.size") Value<Integer> windowSize) {
         this.localConfig = localConfig;
         this.faceManager = faceManager;
         this.metricsFactory = metricsFactory;
+        this.rttEstimatorFactory = rttEstimatorFactory;
         this.waitTime = maxWaitTime;
+        this.windowSize = windowSize;
     }
 
     public void addSubscription(BlocksSyncName blockSyncName) {
         LOG.info("Adding subscription for {}", blockSyncName.getFullName().toUri());
+        ConcurrentMap<BlockName, Block> blocks = new ConcurrentHashMap<>();
         BaseSubscriber<Map<BlockName, Block>> subscriber = new BaseSubscriber<>(
                 faceManager,
                 blockSyncName,
-                this::typeFromData,
+                data -> mergeFromData(blocks, data),
                 BlocksSyncName::new,
                 l -> waitTime.get(),
-                metricsFactory.forNameAndType(blockSyncName.getPlayerName(), BaseSubscriberMetricsNames.ObjectType.BLOCKS));
+                metricsFactory.forNameAndType(blockSyncName.getPlayerName(), BaseSubscriberMetricsNames.ObjectType.BLOCKS),
+                windowSize.get(),
+                rttEstimatorFactory.create());
         subscribersList.add(subscriber);
     }
 
@@ -87,11 +95,24 @@ public class BlockSubscriber implements OnPlayersDiscovered {
         }
     }
 
-    private Map<BlockName, Block> typeFromData(Data data) {
+    /**
+     * Apply the received blocks to a subscription's blocks
+     * Deltas only contain what changed since the last version we saw, otherwise it's the full set
+     */
+    private Map<BlockName, Block> mergeFromData(ConcurrentMap<BlockName, Block> blocks, Data data) {
         try {
-            List<Block> blocks = Blocks.parseFrom(data.getContent().getImmutableArray()).getBlocksList();
+            Blocks update = Blocks.parseFrom(data.getContent().getImmutableArray());
             BlocksSyncName blocksSyncName = new BlocksSyncName(data);
-            return Maps.uniqueIndex(blocks, b -> BlockName.fromBlockSyncNameAndId(blocksSyncName, b.getId()));
+            Map<BlockName, Block> updatedBlocks = Maps.uniqueIndex(
+                    update.getBlocksList(), b -> BlockName.fromBlockSyncNameAndId(blocksSyncName, b.getId()));
+
+            if (!update.getIsDelta()) {
+                blocks.keySet().retainAll(updatedBlocks.keySet());
+            }
+            blocks.putAll(updatedBlocks);
+            update.getRemovedIdsList().forEach(id -> blocks.remove(BlockName.fromBlockSyncNameAndId(blocksSyncName, id)));
+
+            return blocks;
         } catch (InvalidProtocolBufferException e) {
             throw new RuntimeException("Unable to parse Block for %s" + data.getName().toUri(), e);
         }
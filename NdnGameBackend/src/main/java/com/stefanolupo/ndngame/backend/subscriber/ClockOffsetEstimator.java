@@ -0,0 +1,80 @@
+package com.stefanolupo.ndngame.backend.subscriber;
+
+/**
+ * Estimates how far a producer's clock is behind ours from the update timestamps in its Data names
+ * Each Data's delay (receive time - update time) is the offset plus the one way delay, so the minimum
+ * delay over recent Data less half the minimum round trip time is taken as the offset
+ * Taking the minimum delay filters out queueing, and round trip times are only taken from exchanges the
+ * producer answered at once as interests parked until its next update would bias the offset low
+ * Until there are any the one way delay is left in the offset
+ */
+class ClockOffsetEstimator {
+
+    private final long[] delays;
+    private final long[] roundTripTimes;
+    private int numDelays = 0;
+    private int nextDelay = 0;
+    private int numRoundTripTimes = 0;
+    private int nextRoundTripTime = 0;
+
+    private long offsetMs = 0;
+
+    /**
+     * @param numSamples how many of the latest samples the minimums are taken over
+     */
+    ClockOffsetEstimator(int numSamples) {
+        this.delays = new long[numSamples];
+        this.roundTripTimes = new long[numSamples];
+    }
+
+    /**
+     * @param delayMs local receive time - producer update time
+     */
+    synchronized void addDelay(long delayMs) {
+        delays[nextDelay] = delayMs;
+        nextDelay = (nextDelay + 1) % delays.length;
+        numDelays = Math.min(numDelays + 1, delays.length);
+        updateOffset();
+    }
+
+    /**
+     * @param roundTripTimeMs round trip time of an interest the producer answered without holding it
+     */
+    synchronized void addRoundTripTime(long roundTripTimeMs) {
+        roundTripTimes[nextRoundTripTime] = roundTripTimeMs;
+        nextRoundTripTime = (nextRoundTripTime + 1) % roundTripTimes.length;
+        numRoundTripTimes = Math.min(numRoundTripTimes + 1, roundTripTimes.length);
+        updateOffset();
+    }
+
+    /**
+     * @return amount to add to a producer timestamp to put it on our clock, zero before any samples
+     */
+    synchronized long getOffsetMs() {
+        return offsetMs;
+    }
+
+    /**
+     * @return producerTimeMs on our clock
+     */
+    long toLocalTime(long producerTimeMs) {
+        return producerTimeMs + getOffsetMs();
+    }
+
+    private void updateOffset() {
+        if (numDelays == 0) {
+            return;
+        }
+
+        long oneWayDelay = numRoundTripTimes == 0 ? 0 : min(roundTripTimes, numRoundTripTimes) / 2;
+        offsetMs = min(delays, numDelays) - oneWayDelay;
+    }
+
+    private static long min(long[] samples, int numSamples) {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < numSamples; i++) {
+            min = Math.min(min, samples[i]);
+        }
+        return min;
+    }
+}
@@ -35,7 +35,9 @@ public class PlayerStatusSubscriber implements OnPlayersDiscovered {
     private final LocalPlayerReference localPlayerReference;
     private final LinearInterestZoneFilter linearInterestZoneFilter;
     private final BaseSubscriberMetricsFactory metricsFactory;
+    private final RttEstimatorFactory rttEstimatorFactory;
     private final Value<Long> maxWaitTime;
+    private final Value<Integer> windowSize;
     private final Value<Boolean> useZoneFiltering;
 
     @Inject
@@ -44,14 +46,18 @@ public class PlayerStatusSubscriber implements OnPlayersDiscovered {
                                   LocalPlayerReference localPlayerReference,
                                   LinearInterestZoneFilter linearInterestZoneFilter,
                                   BaseSubscriberMetricsFactory metricsFactory,
+                                  RttEstimatorFactory rttEstimatorFactory,
                                   @Named("player.sub.inter.interest.max.wait.time.ms") Value<Long> maxWaitTime,
+                                  @Named("player.sub.interest.window.size") Value<Integer> windowSize,
                                   @Named("linear.interest.zone.filter.enabled") Value<Boolean> useZoneFiltering) {
         this.localConfig = localConfig;
         this.faceManager = faceManager;
         this.localPlayerReference = localPlayerReference;
         this.linearInterestZoneFilter = linearInterestZoneFilter;
         this.metricsFactory = metricsFactory;
+        this.rttEstimatorFactory = rttEstimatorFactory;
         this.maxWaitTime = maxWaitTime;
+        this.windowSize = windowSize;
         this.useZoneFiltering = useZoneFiltering;
     }
 
@@ -63,7 +69,9 @@ public class PlayerStatusSubscriber implements OnPlayersDiscovered {
                 this::typeFromData,
                 PlayerStatusName::new,
                 this::sleepTimeFromPosition,
-                metricsFactory.forNameAndType(name.getPlayerName(), BaseSubscriberMetricsNames.ObjectType.STATUS));
+                metricsFactory.forNameAndType(name.getPlayerName(), BaseSubscriberMetricsNames.ObjectType.STATUS),
+                windowSize.get(),
+                rttEstimatorFactory.create());
         subscriberMap.put(name, subscriber);
     }
 
@@ -76,6 +84,14 @@ public class PlayerStatusSubscriber implements OnPlayersDiscovered {
         return subscriber == null ? -1 : subscriber.getLatestVersionSeen();
     }
 
+    /**
+     * @return when the player made their latest status update as per our clock, or -1 before any
+     */
+    public long getLatestUpdateTimeForPlayer(PlayerStatusName playerStatusName) {
+        BaseSubscriber<PlayerStatus> subscriber = subscriberMap.get(playerStatusName);
+        return subscriber == null ? -1 : subscriber.getLatestUpdateTimeMs();
+    }
+
     public PlayerStatus getLatestStatusForPlayer(PlayerStatusName playerStatusName) {
         BaseSubscriber<PlayerStatus> subscriber = subscriberMap.get(playerStatusName);
         return subscriber == null ? PlayerStatus.getDefaultInstance() : subscriber.getEntity();
@@ -36,17 +36,23 @@ public class ProjectileSubscriber implements OnPlayersDiscovered {
     private final LocalConfig localConfig;
     private final FaceManager faceManager;
     private final BaseSubscriberMetricsFactory metricsFactory;
+    private final RttEstimatorFactory rttEstimatorFactory;
     private final Value<Long> waitTime;
+    private final Value<Integer> windowSize;
 
     @Inject
     public ProjectileSubscriber(LocalConfig localConfig,
                                 FaceManager faceManager,
                                 BaseSubscriberMetricsFactory metricsFactory,
-                                @Named("projectile.sub.inter.interest.max.wait.time.ms") Value<Long> maxWaitTime) {
+                                RttEstimatorFactory rttEstimatorFactory,
+                                @Named("projectile.sub.inter.interest.max.wait.time.ms") Value<Long> maxWaitTime,
+                                @Named("projectile.sub.interest.window.size") Value<Integer> windowSize) {
         this.localConfig = localConfig;
         this.faceManager = faceManager;
         this.metricsFactory = metricsFactory;
+        this.rttEstimatorFactory = rttEstimatorFactory;
         this.waitTime = maxWaitTime;
+        this.windowSize = windowSize;
     }
 
     private void addSubscription(ProjectilesSyncName projectilesSyncName) {
@@ -57,7 +63,9 @@ public class ProjectileSubscriber implements OnPlayersDiscovered {
                 this::typeFromData,
                 ProjectilesSyncName::new,
                 l -> waitTime.get(),
-                metricsFactory.forNameAndType(projectilesSyncName.getPlayerName(), BaseSubscriberMetricsNames.ObjectType.PROJECTILES));
+                metricsFactory.forNameAndType(projectilesSyncName.getPlayerName(), BaseSubscriberMetricsNames.ObjectType.PROJECTILES),
+                windowSize.get(),
+                rttEstimatorFactory.create());
     }
 
     public Map<ProjectileName, Projectile> getNewProjectiles() {
@@ -0,0 +1,114 @@
+package com.stefanolupo.ndngame.backend.subscriber;
+
+import java.util.Random;
+
+/**
+ * Smoothed round trip time estimate for a single subscription as in RFC 6298
+ * Gives the lifetime interests should be expressed with and how long to wait before retransmitting them
+ * Each timeout or NACK in a row doubles the lifetime until Data comes in again, and retransmissions
+ * wait a random delay of up to the backed off lifetime so they don't all come back at once
+ * Producers hold sync interests until they have something new, so their lifetime has the expected hold on top
+ * of the RTO, which is only for interests answered at once
+ */
+public class RttEstimator {
+
+    private static final double ALPHA = 1.0 / 8;
+    private static final double BETA = 1.0 / 4;
+    private static final int K = 4;
+    private static final int MAX_BACKOFF_EXPONENT = 6;
+
+    private final long minRtoMs;
+    private final long maxRtoMs;
+    private final long expectedHoldMs;
+    private final Random random;
+
+    private double smoothedRtt = -1;
+    private double rttVariation;
+    private long rtoMs;
+    private int backoffExponent = 0;
+
+    /**
+     * @param expectedHoldMs how long producers are expected to hold sync interests before answering
+     */
+    RttEstimator(long initialRtoMs, long minRtoMs, long maxRtoMs, long expectedHoldMs, Random random) {
+        this.minRtoMs = minRtoMs;
+        this.maxRtoMs = maxRtoMs;
+        this.expectedHoldMs = expectedHoldMs;
+        this.random = random;
+        this.rtoMs = clamp(initialRtoMs);
+    }
+
+    /**
+     * Add a round trip time measurement
+     * Per Karn's rule this should only be called for Data answering an interest which wasn't retransmitted
+     */
+    synchronized void addMeasurement(long rttMs) {
+        if (smoothedRtt < 0) {
+            smoothedRtt = rttMs;
+            rttVariation = rttMs / 2.0;
+        } else {
+            rttVariation = (1 - BETA) * rttVariation + BETA * Math.abs(smoothedRtt - rttMs);
+            smoothedRtt = (1 - ALPHA) * smoothedRtt + ALPHA * rttMs;
+        }
+
+        rtoMs = clamp((long) Math.ceil(smoothedRtt + K * rttVariation));
+        backoffExponent = 0;
+    }
+
+    /**
+     * Back off after a NACK saying the network is congested or can't reach the producer
+     * @return a random delay of up to the backed off lifetime to wait before retransmitting
+     */
+    synchronized long onNack() {
+        backOff();
+        return jitteredDelay();
+    }
+
+    /**
+     * Back off after an interest timed out
+     * @return a random delay of up to the backed off lifetime to wait before retransmitting
+     */
+    synchronized long onLoss() {
+        backOff();
+        return jitteredDelay();
+    }
+
+    /**
+     * Data came in so whatever was backed off for is over
+     */
+    synchronized void resetBackOff() {
+        backoffExponent = 0;
+    }
+
+    synchronized long getInterestLifetimeMs() {
+        return Math.min(rtoMs << backoffExponent, maxRtoMs);
+    }
+
+    /**
+     * @return lifetime for interests the producer holds until it has something new
+     */
+    synchronized long getHeldInterestLifetimeMs() {
+        return expectedHoldMs + getInterestLifetimeMs();
+    }
+
+    synchronized long getSmoothedRttMs() {
+        return smoothedRtt < 0 ? -1 : Math.round(smoothedRtt);
+    }
+
+    private void backOff() {
+        if (backoffExponent < MAX_BACKOFF_EXPONENT) {
+            backoffExponent++;
+        }
+    }
+
+    /**
+     * Full jitter so subscribers which lost the same producer don't all come back at once
+     */
+    private long jitteredDelay() {
+        return (long) (random.nextDouble() * getInterestLifetimeMs());
+    }
+
+    private long clamp(long rto) {
+        return Math.max(minRtoMs, Math.min(rto, maxRtoMs));
+    }
+}
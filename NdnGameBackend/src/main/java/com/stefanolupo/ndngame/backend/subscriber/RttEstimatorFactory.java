@@ -0,0 +1,33 @@
+package com.stefanolupo.ndngame.backend.subscriber;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.hubspot.liveconfig.value.Value;
+
+import java.util.Random;
+
+@Singleton
+public class RttEstimatorFactory {
+
+    private final Value<Long> initialRtoMs;
+    private final Value<Long> minRtoMs;
+    private final Value<Long> maxRtoMs;
+    private final Value<Long> syncInterestHoldMs;
+    private final Random random = new Random();
+
+    @Inject
+    public RttEstimatorFactory(@Named("sub.rto.initial.ms") Value<Long> initialRtoMs,
+                               @Named("sub.rto.min.ms") Value<Long> minRtoMs,
+                               @Named("sub.rto.max.ms") Value<Long> maxRtoMs,
+                               @Named("sub.sync.interest.hold.ms") Value<Long> syncInterestHoldMs) {
+        this.initialRtoMs = initialRtoMs;
+        this.minRtoMs = minRtoMs;
+        this.maxRtoMs = maxRtoMs;
+        this.syncInterestHoldMs = syncInterestHoldMs;
+    }
+
+    public RttEstimator create() {
+        return new RttEstimator(initialRtoMs.get(), minRtoMs.get(), maxRtoMs.get(), syncInterestHoldMs.get(), random);
+    }
+}
@@ -0,0 +1,198 @@
+package com.stefanolupo.ndngame.backend.subscriber;
+
+import com.stefanolupo.ndngame.backend.ndn.FaceManager;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.NetworkNack;
+import net.named_data.jndn.OnData;
+import net.named_data.jndn.OnNetworkNack;
+import net.named_data.jndn.OnTimeout;
+import net.named_data.jndn.encoding.EncodingException;
+import net.named_data.jndn.util.Blob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Fetches the remaining segments of segmented Data given its first segment
+ * Keeps a window of segment interests in flight so fetch time doesn't grow with segments * round trip time
+ * Completes with a single Data named without the segment component holding the reassembled content
+ * Segments are answered straight away so they feed the subscription's {@link RttEstimator}, a lost one backs it off
+ */
+class SegmentFetcher implements OnData, OnTimeout, OnNetworkNack {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentFetcher.class);
+
+    private static final int MAX_RETRIES_PER_SEGMENT = 3;
+
+    private final FaceManager faceManager;
+    private final Name streamName;
+    private final Name name;
+    private final int windowSize;
+    private final RttEstimator rttEstimator;
+    private final Consumer<Data> onComplete;
+    private final Runnable onFailure;
+
+    private final Blob[] segments;
+    private final int[] retries;
+    private final long[] expressTimes;
+    private final int[] expressRounds;
+    private int numReceived = 0;
+    private int nextSegmentToRequest = 0;
+    private boolean isDone = false;
+    // Bumped on each back off, segments expressed before it timing out were already accounted for
+    private int round = 0;
+
+    SegmentFetcher(FaceManager faceManager,
+                   Name streamName,
+                   Data firstSegment,
+                   int windowSize,
+                   RttEstimator rttEstimator,
+                   Consumer<Data> onComplete,
+                   Runnable onFailure) {
+        this.faceManager = faceManager;
+        this.streamName = streamName;
+        this.name = firstSegment.getName().getPrefix(-1);
+        this.windowSize = windowSize;
+        this.rttEstimator = rttEstimator;
+        this.onComplete = onComplete;
+        this.onFailure = onFailure;
+
+        int numSegments = (int) toSegment(firstSegment.getMetaInfo().getFinalBlockId()) + 1;
+        this.segments = new Blob[numSegments];
+        this.retries = new int[numSegments];
+        this.expressTimes = new long[numSegments];
+        this.expressRounds = new int[numSegments];
+        store(firstSegment);
+    }
+
+    static boolean isSegmented(Data data) {
+        return data.getName().size() > 0 && data.getName().get(-1).isSegment();
+    }
+
+    synchronized void start() {
+        if (numReceived == segments.length) {
+            complete();
+            return;
+        }
+
+        for (int i = 0; i < windowSize; i++) {
+            requestNextSegment();
+        }
+    }
+
+    @Override
+    public synchronized void onData(Interest interest, Data data) {
+        if (isDone) {
+            return;
+        }
+
+        int segment = (int) toSegment(data.getName().get(-1));
+        if (store(data) && retries[segment] == 0) {
+            rttEstimator.addMeasurement(System.currentTimeMillis() - expressTimes[segment]);
+        }
+
+        if (numReceived == segments.length) {
+            complete();
+        } else {
+            requestNextSegment();
+        }
+    }
+
+    @Override
+    public synchronized void onTimeout(Interest interest) {
+        if (isDone) {
+            return;
+        }
+
+        int segment = (int) toSegment(interest.getName().get(-1));
+        if (++retries[segment] > MAX_RETRIES_PER_SEGMENT) {
+            LOG.debug("Giving up on {} after {} retries of segment {}", name, MAX_RETRIES_PER_SEGMENT, segment);
+            fail();
+            return;
+        }
+
+        // The rest of the window was expressed with the same lifetime, only back off once for them
+        if (expressRounds[segment] == round) {
+            rttEstimator.onLoss();
+            round++;
+        }
+        expressInterest(segment);
+    }
+
+    @Override
+    public synchronized void onNetworkNack(Interest interest, NetworkNack networkNack) {
+        if (isDone) {
+            return;
+        }
+
+        LOG.debug("Giving up on {} after a {} NACK for {}", name, networkNack.getReason(), interest.getName());
+        fail();
+    }
+
+    private void fail() {
+        isDone = true;
+        onFailure.run();
+    }
+
+    /**
+     * @return whether the segment was new
+     */
+    private boolean store(Data data) {
+        int segment = (int) toSegment(data.getName().get(-1));
+        if (segment >= segments.length || segments[segment] != null) {
+            return false;
+        }
+
+        segments[segment] = data.getContent();
+        numReceived++;
+        return true;
+    }
+
+    private void requestNextSegment() {
+        while (nextSegmentToRequest < segments.length && segments[nextSegmentToRequest] != null) {
+            nextSegmentToRequest++;
+        }
+
+        if (nextSegmentToRequest < segments.length) {
+            expressInterest(nextSegmentToRequest++);
+        }
+    }
+
+    private void expressInterest(int segment) {
+        Interest interest = new Interest(new Name(name).appendSegment(segment))
+                .setInterestLifetimeMilliseconds(rttEstimator.getInterestLifetimeMs())
+                .setCanBePrefix(false);
+        expressTimes[segment] = System.currentTimeMillis();
+        expressRounds[segment] = round;
+        faceManager.expressInterestSafe(interest, this, this, this, streamName);
+    }
+
+    private void complete() {
+        isDone = true;
+
+        int size = 0;
+        for (Blob segment : segments) {
+            size += segment.size();
+        }
+
+        ByteBuffer content = ByteBuffer.allocate(size);
+        for (Blob segment : segments) {
+            content.put(segment.buf());
+        }
+        content.flip();
+
+        onComplete.accept(new Data(name).setContent(new Blob(content, false)));
+    }
+
+    private static long toSegment(Name.Component component) {
+        try {
+            return component.toSegment();
+        } catch (EncodingException e) {
+            throw new RuntimeException("Expected a segment component but got " + component.toEscapedString(), e);
+        }
+    }
+}
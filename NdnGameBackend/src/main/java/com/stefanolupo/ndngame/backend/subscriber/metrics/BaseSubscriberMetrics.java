@@ -7,11 +7,20 @@ public class BaseSubscriberMetrics {
 
     private final Histogram roundTripTime;
     private final Counter interestsExpressedCounter;
+    private final Counter staleDataCounter;
+    private final Counter timeoutsCounter;
+    private final Histogram receiveStaleness;
 
     public BaseSubscriberMetrics(Histogram roundTripTime,
-                                 Counter interestsExpressedCounter) {
+                                 Counter interestsExpressedCounter,
+                                 Counter staleDataCounter,
+                                 Counter timeoutsCounter,
+                                 Histogram receiveStaleness) {
         this.roundTripTime = roundTripTime;
         this.interestsExpressedCounter = interestsExpressedCounter;
+        this.staleDataCounter = staleDataCounter;
+        this.timeoutsCounter = timeoutsCounter;
+        this.receiveStaleness = receiveStaleness;
     }
 
     public Histogram getRoundTripTime() {
@@ -21,4 +30,19 @@ public class BaseSubscriberMetrics {
     public Counter getInterestsExpressedCounter() {
         return interestsExpressedCounter;
     }
+
+    public Counter getStaleDataCounter() {
+        return staleDataCounter;
+    }
+
+    public Counter getTimeoutsCounter() {
+        return timeoutsCounter;
+    }
+
+    /**
+     * Time from the producer's update until we applied it, corrected for clock offset
+     */
+    public Histogram getReceiveStaleness() {
+        return receiveStaleness;
+    }
 }
@@ -23,7 +23,10 @@ public class BaseSubscriberMetricsFactory {
     private BaseSubscriberMetrics buildForName(BaseSubscriberMetricsNames names) {
         return new BaseSubscriberMetrics(
                 metrics.histogram(names.getRttName()),
-                metrics.counter(names.getInterestExpressedCounterName())
+                metrics.counter(names.getInterestExpressedCounterName()),
+                metrics.counter(names.getStaleDataCounterName()),
+                metrics.counter(names.getTimeoutsCounterName()),
+                metrics.histogram(names.getReceiveStalenessName())
         );
     }
 }
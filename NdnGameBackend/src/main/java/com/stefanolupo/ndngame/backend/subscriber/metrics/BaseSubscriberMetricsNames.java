@@ -22,7 +22,10 @@ public class BaseSubscriberMetricsNames {
 
     public enum MetricType {
         RTT("rtt"),
-        INTERESTS_EXPRESSED_COUNTER("interestscounter");
+        INTERESTS_EXPRESSED_COUNTER("interestscounter"),
+        STALE_DATA_COUNTER("stalecounter"),
+        TIMEOUTS_COUNTER("timeoutcounter"),
+        RECEIVE_STALENESS("recvstaleness");
 
         private String name;
 
@@ -33,6 +36,9 @@ public class BaseSubscriberMetricsNames {
 
     private String rttName;
     private String interestExpressedCounterName;
+    private String staleDataCounterName;
+    private String timeoutsCounterName;
+    private String receiveStalenessName;
 
     private BaseSubscriberMetricsNames() {}
 
@@ -40,6 +46,9 @@ public class BaseSubscriberMetricsNames {
         BaseSubscriberMetricsNames names = new BaseSubscriberMetricsNames();
         names.rttName = String.format(FORMAT_STRING, objectType.name, MetricType.RTT.name, playerName.getName());
         names.interestExpressedCounterName = String.format(FORMAT_STRING, objectType.name, MetricType.INTERESTS_EXPRESSED_COUNTER.name, playerName.getName());
+        names.staleDataCounterName = String.format(FORMAT_STRING, objectType.name, MetricType.STALE_DATA_COUNTER.name, playerName.getName());
+        names.timeoutsCounterName = String.format(FORMAT_STRING, objectType.name, MetricType.TIMEOUTS_COUNTER.name, playerName.getName());
+        names.receiveStalenessName = String.format(FORMAT_STRING, objectType.name, MetricType.RECEIVE_STALENESS.name, playerName.getName());
         return names;
     }
 
@@ -50,4 +59,16 @@ public class BaseSubscriberMetricsNames {
     public String getInterestExpressedCounterName() {
         return interestExpressedCounterName;
     }
+
+    public String getStaleDataCounterName() {
+        return staleDataCounterName;
+    }
+
+    public String getTimeoutsCounterName() {
+        return timeoutsCounterName;
+    }
+
+    public String getReceiveStalenessName() {
+        return receiveStalenessName;
+    }
 }
@@ -0,0 +1,118 @@
+package com.stefanolupo.ndngame.backend;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.stefanolupo.ndngame.backend.guice.BackendModule;
+import com.stefanolupo.ndngame.backend.ndn.FaceFactory;
+import com.stefanolupo.ndngame.backend.ndn.memory.InMemoryFaceFactory;
+import com.stefanolupo.ndngame.backend.ndn.memory.InMemoryForwarder;
+import com.stefanolupo.ndngame.backend.publisher.PlayerStatusPublisher;
+import com.stefanolupo.ndngame.backend.subscriber.PlayerStatusSubscriber;
+import com.stefanolupo.ndngame.config.LocalConfig;
+import com.stefanolupo.ndngame.names.PlayerStatusName;
+import com.stefanolupo.ndngame.protos.GameObject;
+import com.stefanolupo.ndngame.protos.PlayerStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a number of simulated players in this JVM, all connected to a single {@link InMemoryForwarder}
+ * Each player publishes its status at a fixed rate and subscribes to every other player's status
+ * Per player metrics are written to METRICS_DIR as usual
+ *
+ * Usage: SimulatedPlayersBenchmark [numPlayers] [durationSec] [updatesPerSec] [contentStoreCapacity]
+ * Run from the test classpath, it isn't part of the backend as it exits the JVM once done
+ */
+public class SimulatedPlayersBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SimulatedPlayersBenchmark.class);
+
+    private static final long GAME_ID = 0;
+    private static final int DEFAULT_NUM_PLAYERS = 2;
+    private static final int DEFAULT_DURATION_SEC = 60;
+    private static final int DEFAULT_UPDATES_PER_SEC = 30;
+    private static final int DEFAULT_CONTENT_STORE_CAPACITY = 0;
+    private static final float WORLD_SIZE = 100;
+
+    private final List<LocalConfig> configs = new ArrayList<>();
+    private final List<PlayerStatusPublisher> publishers = new ArrayList<>();
+    private final List<PlayerStatusSubscriber> subscribers = new ArrayList<>();
+    private final Random random = new Random();
+
+    private long numUpdatesPublished = 0;
+
+    public SimulatedPlayersBenchmark(int numPlayers, int contentStoreCapacity) {
+        FaceFactory faceFactory = new InMemoryFaceFactory(new InMemoryForwarder(contentStoreCapacity));
+
+        for (int i = 0; i < numPlayers; i++) {
+            LocalConfig config = LocalConfig.builder()
+                    .setPlayerName("sim" + i)
+                    .setGameId(GAME_ID)
+                    .setIsHeadless(true)
+                    .setIsAutomated(true)
+                    .build();
+            Injector injector = Guice.createInjector(new BackendModule(config, faceFactory));
+            configs.add(config);
+            publishers.add(injector.getInstance(PlayerStatusPublisher.class));
+            subscribers.add(injector.getInstance(PlayerStatusSubscriber.class));
+        }
+
+        LOG.info("Created {} simulated players", numPlayers);
+    }
+
+    public void run(int durationSec, int updatesPerSec) throws InterruptedException {
+        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+        executorService.scheduleAtFixedRate(this::publishUpdates, 0, 1000 / updatesPerSec, TimeUnit.MILLISECONDS);
+        executorService.awaitTermination(durationSec, TimeUnit.SECONDS);
+        executorService.shutdownNow();
+        logResults(durationSec);
+    }
+
+    private void publishUpdates() {
+        for (PlayerStatusPublisher publisher : publishers) {
+            GameObject gameObject = GameObject.newBuilder()
+                    .setX(random.nextFloat() * WORLD_SIZE)
+                    .setY(random.nextFloat() * WORLD_SIZE)
+                    .build();
+            publisher.updateLocalPlayerStatus(PlayerStatus.newBuilder().setGameObject(gameObject).build());
+            numUpdatesPublished++;
+        }
+    }
+
+    private void logResults(int durationSec) {
+        long numUpdatesReceived = 0;
+        for (int i = 0; i < subscribers.size(); i++) {
+            for (int j = 0; j < configs.size(); j++) {
+                if (i == j) continue;
+                PlayerStatusName name = new PlayerStatusName(GAME_ID, configs.get(j).getPlayerName());
+                numUpdatesReceived += Math.max(subscribers.get(i).getLatestVersionForPlayer(name), 0);
+            }
+        }
+
+        long numSubscriptions = (long) subscribers.size() * (subscribers.size() - 1);
+        double expectedUpdates = numSubscriptions * (numUpdatesPublished / (double) publishers.size());
+        LOG.info("Published {} updates ({}/s), latest versions seen account for {} updates ({}/s, {}% of expected)",
+                numUpdatesPublished,
+                numUpdatesPublished / durationSec,
+                numUpdatesReceived,
+                numUpdatesReceived / durationSec,
+                expectedUpdates == 0 ? 0 : Math.round(numUpdatesReceived * 100 / expectedUpdates));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numPlayers = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_PLAYERS;
+        int durationSec = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DURATION_SEC;
+        int updatesPerSec = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_UPDATES_PER_SEC;
+        int contentStoreCapacity = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CONTENT_STORE_CAPACITY;
+
+        new SimulatedPlayersBenchmark(numPlayers, contentStoreCapacity).run(durationSec, updatesPerSec);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,157 @@
+package com.stefanolupo.ndngame.backend.ndn.memory;
+
+import net.named_data.jndn.ControlParameters;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.NetworkNack;
+import net.named_data.jndn.encoding.WireFormat;
+import net.named_data.jndn.encoding.tlv.Tlv;
+import net.named_data.jndn.lp.LpPacket;
+import net.named_data.jndn.transport.Transport;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class InMemoryForwarderTest {
+
+    private static final Name PREFIX = new Name("/test");
+    private static final Name NAME = new Name(PREFIX).append("a");
+    private static final long RECEIVE_TIMEOUT_MS = 1000;
+    // How long to wait before deciding nothing more is coming
+    private static final long QUIET_PERIOD_MS = 200;
+
+    private InMemoryForwarder forwarder;
+
+    @Before
+    public void setup() {
+        forwarder = new InMemoryForwarder(0);
+    }
+
+    @Test
+    public void itShouldAggregateInterestsForTheSameName() throws Exception {
+        TestFace producer = registeredProducer();
+        TestFace consumerA = new TestFace();
+        TestFace consumerB = new TestFace();
+
+        consumerA.send(new Interest(NAME));
+        consumerB.send(new Interest(NAME));
+
+        assertEquals(NAME, producer.receiveInterest().getName());
+        assertNull(producer.poll(QUIET_PERIOD_MS));
+
+        producer.send(new Data(NAME));
+        assertEquals(NAME, consumerA.receiveData().getName());
+        assertEquals(NAME, consumerB.receiveData().getName());
+    }
+
+    @Test
+    public void itShouldAnswerFromTheContentStore() throws Exception {
+        forwarder = new InMemoryForwarder(10);
+        TestFace producer = registeredProducer();
+        TestFace consumerA = new TestFace();
+        TestFace consumerB = new TestFace();
+
+        consumerA.send(new Interest(NAME).setMustBeFresh(true));
+        producer.receiveInterest();
+        Data data = new Data(NAME);
+        data.getMetaInfo().setFreshnessPeriod(10_000);
+        producer.send(data);
+        consumerA.receiveData();
+
+        consumerB.send(new Interest(NAME).setMustBeFresh(true));
+        assertEquals(NAME, consumerB.receiveData().getName());
+        assertNull(producer.poll(QUIET_PERIOD_MS));
+    }
+
+    @Test
+    public void itShouldExpireInterestsAfterTheirLifetime() throws Exception {
+        TestFace producer = registeredProducer();
+        TestFace consumer = new TestFace();
+
+        consumer.send(new Interest(NAME).setInterestLifetimeMilliseconds(50));
+        producer.receiveInterest();
+        Thread.sleep(QUIET_PERIOD_MS);
+
+        // Nothing is waiting on it anymore
+        producer.send(new Data(NAME));
+        assertNull(consumer.poll(QUIET_PERIOD_MS));
+    }
+
+    @Test
+    public void itShouldNackInterestsWithNoRoute() throws Exception {
+        TestFace consumer = new TestFace();
+
+        consumer.send(new Interest(NAME));
+
+        ByteBuffer element = consumer.receive();
+        assertEquals(Tlv.LpPacket_LpPacket, element.get(element.position()) & 0xFF);
+        LpPacket lpPacket = new LpPacket();
+        WireFormat.getDefaultWireFormat().decodeLpPacket(lpPacket, element);
+        NetworkNack networkNack = NetworkNack.getFirstHeader(lpPacket);
+        assertNotNull(networkNack);
+        assertEquals(NetworkNack.Reason.NO_ROUTE, networkNack.getReason());
+
+        Interest rejected = new Interest();
+        rejected.wireDecode(lpPacket.getFragmentWireEncoding());
+        assertEquals(NAME, rejected.getName());
+    }
+
+    private TestFace registeredProducer() throws Exception {
+        TestFace producer = new TestFace();
+        ControlParameters parameters = new ControlParameters().setName(PREFIX);
+        producer.send(new Interest(new Name("/localhost/nfd/rib/register").append(parameters.wireEncode())));
+        producer.receiveData();
+        return producer;
+    }
+
+    /**
+     * Collects everything the forwarder sends down to it
+     */
+    private class TestFace {
+        private final BlockingQueue<ByteBuffer> received = new LinkedBlockingQueue<>();
+        private final InMemoryTransport transport = new InMemoryTransport(forwarder, Runnable::run);
+
+        TestFace() {
+            transport.connect(new Transport.ConnectionInfo(), received::add, null);
+        }
+
+        void send(Interest interest) throws Exception {
+            transport.send(interest.wireEncode().buf());
+        }
+
+        void send(Data data) throws Exception {
+            transport.send(data.wireEncode().buf());
+        }
+
+        ByteBuffer poll(long timeoutMs) throws InterruptedException {
+            return received.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        ByteBuffer receive() throws InterruptedException {
+            ByteBuffer element = poll(RECEIVE_TIMEOUT_MS);
+            assertNotNull("Nothing received", element);
+            return element;
+        }
+
+        Interest receiveInterest() throws Exception {
+            Interest interest = new Interest();
+            interest.wireDecode(receive());
+            return interest;
+        }
+
+        Data receiveData() throws Exception {
+            Data data = new Data();
+            data.wireDecode(receive());
+            return data;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hubspot.liveconfig.value.Value;
+import com.stefanolupo.ndngame.backend.ndn.BasePublisherFactory;
+import com.stefanolupo.ndngame.backend.ndn.FaceManager;
+import com.stefanolupo.ndngame.config.LocalConfig;
+import com.stefanolupo.ndngame.names.blocks.BlockName;
+import com.stefanolupo.ndngame.protos.Block;
+import com.stefanolupo.ndngame.protos.Blocks;
+import net.named_data.jndn.util.Blob;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.function.LongFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlockPublisherTest {
+
+    private static final long GAME_ID = 0;
+    private static final String PLAYER_NAME = "test";
+
+    @Mock private BasePublisherFactory factory;
+    @Mock private BasePublisher basePublisher;
+    @Mock private FaceManager faceManager;
+    @Mock private Value<Double> freshnessPeriod;
+    @Mock private Value<Integer> deltaHistoryVersions;
+    @Mock private Value<Boolean> coalesceUpdates;
+    @Mock private Value<Integer> maxPublishesPerSec;
+
+    private BlockPublisher blockPublisher;
+
+    @Before
+    public void setup() {
+        when(factory.create(any(), any(), any())).thenReturn(basePublisher);
+        when(basePublisher.updateLatestContent(any())).thenReturn(1L, 2L, 3L, 4L);
+        when(deltaHistoryVersions.get()).thenReturn(2);
+        when(coalesceUpdates.get()).thenReturn(false);
+        when(maxPublishesPerSec.get()).thenReturn(1000);
+        blockPublisher = buildBlockPublisher();
+    }
+
+    @Test
+    public void itShouldOnlySendBlocksChangedSinceVersionSeen() throws Exception {
+        upsert("a", 10);
+        upsert("b", 10);
+        upsert("a", 9);
+
+        Blocks blocks = blocksSince(2);
+
+        assertTrue(blocks.getIsDelta());
+        assertEquals(1, blocks.getBlocksCount());
+        assertEquals("a", blocks.getBlocks(0).getId());
+        assertEquals(9, blocks.getBlocks(0).getHealth());
+    }
+
+    @Test
+    public void itShouldSendRemovedBlockIds() throws Exception {
+        upsert("a", 10);
+        upsert("b", 10);
+        blockPublisher.removeBlock(new BlockName(GAME_ID, PLAYER_NAME, "a"));
+
+        Blocks blocks = blocksSince(2);
+
+        assertTrue(blocks.getIsDelta());
+        assertEquals(0, blocks.getBlocksCount());
+        assertEquals(1, blocks.getRemovedIdsCount());
+        assertEquals("a", blocks.getRemovedIds(0));
+    }
+
+    @Test
+    public void itShouldSendFullSetWhenVersionSeenHasAgedOut() throws Exception {
+        upsert("a", 10);
+        upsert("b", 10);
+        upsert("c", 10);
+        upsert("c", 9);
+
+        Blocks blocks = blocksSince(1);
+
+        assertFalse(blocks.getIsDelta());
+        assertEquals(3, blocks.getBlocksCount());
+    }
+
+    @Test
+    public void itShouldPublishCoalescedUpdatesOnceOnFlush() {
+        when(coalesceUpdates.get()).thenReturn(true);
+        blockPublisher = buildBlockPublisher();
+
+        upsert("a", 10);
+        upsert("b", 10);
+        blockPublisher.removeBlock(new BlockName(GAME_ID, PLAYER_NAME, "a"));
+        verify(basePublisher, never()).updateLatestContent(any());
+
+        blockPublisher.flushPendingUpdates();
+        blockPublisher.flushPendingUpdates();
+        verify(basePublisher, times(1)).updateLatestContent(any());
+    }
+
+    @Test
+    public void itShouldNotRateLimitFlushesWhenMaxPublishesIsZero() {
+        when(coalesceUpdates.get()).thenReturn(true);
+        when(maxPublishesPerSec.get()).thenReturn(0);
+        blockPublisher = buildBlockPublisher();
+
+        upsert("a", 10);
+        blockPublisher.flushPendingUpdates();
+        upsert("b", 10);
+        blockPublisher.flushPendingUpdates();
+
+        verify(basePublisher, times(2)).updateLatestContent(any());
+    }
+
+    private BlockPublisher buildBlockPublisher() {
+        LocalConfig localConfig = new LocalConfig.Builder()
+                .setGameId(GAME_ID)
+                .setPlayerName(PLAYER_NAME)
+                .build();
+        return new BlockPublisher(localConfig, factory, faceManager, new MetricRegistry(),
+                freshnessPeriod, deltaHistoryVersions, coalesceUpdates, maxPublishesPerSec);
+    }
+
+    private void upsert(String id, int health) {
+        Block block = Block.newBuilder().setId(id).setHealth(health).build();
+        blockPublisher.upsertBlock(new BlockName(GAME_ID, PLAYER_NAME, id), block);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Blocks blocksSince(long sequenceNumberSeen) throws Exception {
+        ArgumentCaptor<LongFunction> captor = ArgumentCaptor.forClass(LongFunction.class);
+        verify(basePublisher, atLeastOnce()).updateLatestContent(captor.capture());
+        Blob blob = (Blob) captor.getValue().apply(sequenceNumberSeen);
+        return Blocks.parseFrom(blob.getImmutableArray());
+    }
+}
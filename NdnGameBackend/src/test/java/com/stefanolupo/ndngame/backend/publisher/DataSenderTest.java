@@ -0,0 +1,131 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hubspot.liveconfig.value.Value;
+import com.stefanolupo.ndngame.backend.executors.ExecutorManager;
+import com.stefanolupo.ndngame.metrics.MetricNames;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.util.Blob;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataSenderTest {
+
+    private static final int QUEUE_CAPACITY = 2;
+    private static final int BATCH_SIZE = 1;
+
+    @Mock private ExecutorManager executorManager;
+    @Mock private Value<Integer> numThreads;
+    @Mock private Value<Integer> queueCapacity;
+    @Mock private Value<Integer> batchSize;
+    @Mock private Face face;
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final MetricRegistry metrics = new MetricRegistry();
+    private DataSender dataSender;
+
+    @Before
+    public void setup() {
+        when(executorManager.getSender(anyString(), anyInt())).thenReturn(executor);
+        when(numThreads.get()).thenReturn(1);
+        when(queueCapacity.get()).thenReturn(QUEUE_CAPACITY);
+        when(batchSize.get()).thenReturn(BATCH_SIZE);
+        dataSender = new DataSender(executorManager, metrics, numThreads, queueCapacity, batchSize);
+    }
+
+    @Test
+    public void itShouldSendToAFaceInOrderFromOneDrainAtATime() throws Exception {
+        Blob first = send("a");
+        Blob second = send("b");
+
+        assertEquals(1, executor.tasks.size());
+        verify(face, never()).send(first);
+
+        executor.runAll();
+
+        InOrder inOrder = inOrder(face);
+        inOrder.verify(face).send(first);
+        inOrder.verify(face).send(second);
+        assertEquals(2, metrics.timer(MetricNames.dataSenderLatency()).getCount());
+    }
+
+    @Test
+    public void itShouldDropSendsToAFullQueue() throws Exception {
+        send("a");
+        send("b");
+        Blob dropped = send("c");
+
+        executor.runAll();
+
+        verify(face, never()).send(dropped);
+        assertEquals(1, metrics.meter(MetricNames.dataSenderDropped()).getCount());
+    }
+
+    private Blob send(String name) {
+        Blob encoding = new Blob(name.getBytes());
+        dataSender.send(new DataSend(face, new Name(name), encoding));
+        return encoding;
+    }
+
+    /**
+     * Only runs tasks when asked so tests can see what's queued
+     */
+    private static class ManualExecutor extends AbstractExecutorService {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {}
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return null;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
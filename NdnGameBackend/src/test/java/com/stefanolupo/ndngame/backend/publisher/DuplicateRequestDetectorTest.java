@@ -0,0 +1,68 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.Meter;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DuplicateRequestDetectorTest {
+
+    private static final int WINDOW_SECONDS = 60;
+    private static final int TRACKED_SEQUENCE_NUMBERS = 16;
+
+    private final Meter duplicates = new Meter();
+    private long nowMs = 1_000_000;
+    private DuplicateRequestDetector detector;
+
+    @Before
+    public void setup() {
+        detector = new DuplicateRequestDetector(WINDOW_SECONDS, TRACKED_SEQUENCE_NUMBERS, duplicates, () -> nowMs);
+    }
+
+    @Test
+    public void itShouldSpotRepeatedSequenceNumbers() {
+        assertFalse(detector.record(1));
+        assertFalse(detector.record(2));
+        assertTrue(detector.record(1));
+
+        assertEquals(1, duplicates.getCount());
+        assertEquals(1.0 / 3, detector.getValue(), 1e-9);
+    }
+
+    @Test
+    public void itShouldForgetRequestsOutsideTheWindow() {
+        detector.record(1);
+        nowMs += WINDOW_SECONDS * 1000;
+
+        assertFalse(detector.record(1));
+        assertEquals(0.0, detector.getValue(), 1e-9);
+    }
+
+    @Test
+    public void itShouldDropEachSecondAsItRotatesOutOfTheWindow() {
+        detector.record(1);
+        detector.record(2);
+        nowMs += WINDOW_SECONDS / 2 * 1000;
+        detector.record(2);
+        assertEquals(1.0 / 3, detector.getValue(), 1e-9);
+
+        nowMs += WINDOW_SECONDS / 2 * 1000;
+        detector.record(3);
+        assertEquals(1.0 / 2, detector.getValue(), 1e-9);
+
+        nowMs += WINDOW_SECONDS * 1000;
+        assertEquals(Double.NaN, detector.getValue(), 0);
+    }
+
+    @Test
+    public void itShouldOnlyTrackTheMostRecentSequenceNumberInEachSlot() {
+        detector.record(1);
+        detector.record(1 + TRACKED_SEQUENCE_NUMBERS);
+
+        assertFalse(detector.record(1));
+        assertEquals(0, duplicates.getCount());
+    }
+}
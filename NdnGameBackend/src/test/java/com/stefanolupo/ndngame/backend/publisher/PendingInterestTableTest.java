@@ -0,0 +1,146 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.Meter;
+import com.stefanolupo.ndngame.backend.executors.HashedWheelTimer;
+import com.stefanolupo.ndngame.names.PlayerStatusName;
+import com.stefanolupo.ndngame.names.SequenceNumberedName;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Interest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PendingInterestTableTest {
+
+    private static final long GAME_ID = 0;
+    private static final long INTEREST_LIFETIME_MS = 1000;
+
+    @Mock private Face face;
+    @Mock private Face otherFace;
+    @Mock private HashedWheelTimer timer;
+    @Mock private HashedWheelTimer.Timeout timeout;
+
+    private final Meter evictions = new Meter();
+    private final Meter staleSendsAvoided = new Meter();
+    private PendingInterestTable table;
+
+    @Before
+    public void setup() {
+        when(timer.newTimeout(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenReturn(timeout);
+        when(timeout.cancel()).thenReturn(true);
+        table = new PendingInterestTable(timer, evictions, staleSendsAvoided);
+    }
+
+    @Test
+    public void itShouldOnlyDrainInterestsBehindSequenceNumber() {
+        add("a", 1, face);
+        add("b", 5, face);
+        add("c", 3, face);
+
+        List<Long> drained = new ArrayList<>();
+        table.drainBehind(4, (name, f) -> drained.add(name.getLatestSequenceNumberSeen()));
+
+        assertEquals(2, drained.size());
+        assertEquals(1L, (long) drained.get(0));
+        assertEquals(3L, (long) drained.get(1));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void itShouldLeaveInterestsNotMatchingTheFilterParked() {
+        add("a", 1, face);
+        add("b", 2, face);
+        add("c", 3, face);
+
+        List<Long> drained = new ArrayList<>();
+        table.drainBehind(4, sequenceNumber -> sequenceNumber != 2, (name, f) -> drained.add(name.getLatestSequenceNumberSeen()));
+
+        assertEquals(2, drained.size());
+        assertEquals(1L, (long) drained.get(0));
+        assertEquals(3L, (long) drained.get(1));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void itShouldKeepInterestsForDifferentStreamsAtSameSequenceNumber() {
+        add("a", 2, face);
+        add("b", 2, face);
+
+        List<SequenceNumberedName> drained = new ArrayList<>();
+        table.drainBehind(3, (name, f) -> drained.add(name));
+
+        assertEquals(2, drained.size());
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void itShouldReplaceRetransmittedInterests() {
+        add("a", 2, face);
+        add("a", 2, otherFace);
+
+        List<Face> faces = new ArrayList<>();
+        table.drainBehind(3, (name, f) -> faces.add(f));
+
+        assertEquals(1, faces.size());
+        assertEquals(otherFace, faces.get(0));
+        assertEquals(1, staleSendsAvoided.getCount());
+    }
+
+    @Test
+    public void itShouldVisitEachSequenceNumberSeenOnceUntilTheVisitorStops() {
+        add("a", 1, face);
+        add("b", 1, face);
+        add("c", 3, face);
+        add("d", 5, face);
+
+        List<Long> visited = new ArrayList<>();
+        table.forEachSequenceNumberSeen(sequenceNumber -> {
+            visited.add(sequenceNumber);
+            return sequenceNumber < 3;
+        });
+
+        assertEquals(2, visited.size());
+        assertEquals(1L, (long) visited.get(0));
+        assertEquals(3L, (long) visited.get(1));
+        assertEquals(4, table.size());
+    }
+
+    @Test
+    public void itShouldEvictInterestsOnceTheirLifetimeRunsOut() {
+        add("a", 2, face);
+
+        ArgumentCaptor<Runnable> expiry = ArgumentCaptor.forClass(Runnable.class);
+        verify(timer).newTimeout(expiry.capture(), eq(INTEREST_LIFETIME_MS), eq(TimeUnit.MILLISECONDS));
+        expiry.getValue().run();
+
+        List<Face> faces = new ArrayList<>();
+        table.drainBehind(3, (name, f) -> faces.add(f));
+
+        assertEquals(0, faces.size());
+        assertEquals(0, table.size());
+        assertEquals(1, evictions.getCount());
+        assertEquals(1, staleSendsAvoided.getCount());
+    }
+
+    private void add(String playerName, long sequenceNumber, Face face) {
+        PlayerStatusName name = new PlayerStatusName(GAME_ID, playerName);
+        name.setNextSequenceNumber(sequenceNumber);
+        Interest interest = name.buildInterest().setInterestLifetimeMilliseconds(INTEREST_LIFETIME_MS);
+        table.add(new PlayerStatusName(interest), interest, face);
+    }
+}
@@ -0,0 +1,65 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import com.codahale.metrics.Counter;
+import com.hubspot.liveconfig.value.Value;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.util.Blob;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProducerContentStoreTest {
+
+    private static final Name A = new Name("/test/sync/1/2/3");
+    private static final Name B = new Name("/test/sync/2/3/4");
+    private static final Name C = new Name("/test/sync/3/4/5");
+
+    @Mock private Value<Double> freshnessPeriod;
+
+    private Counter hits;
+    private Counter misses;
+    private ProducerContentStore contentStore;
+
+    @Before
+    public void setup() {
+        when(freshnessPeriod.get()).thenReturn(10_000.0);
+        hits = new Counter();
+        misses = new Counter();
+        contentStore = new ProducerContentStore(2, freshnessPeriod, hits, misses);
+    }
+
+    @Test
+    public void itShouldEvictLeastRecentlyUsed() {
+        put(A);
+        put(B);
+        contentStore.get(A);
+        put(C);
+
+        assertNotNull(contentStore.get(A));
+        assertNull(contentStore.get(B));
+        assertNotNull(contentStore.get(C));
+        assertEquals(3, hits.getCount());
+        assertEquals(1, misses.getCount());
+    }
+
+    @Test
+    public void itShouldNotServeStaleData() {
+        when(freshnessPeriod.get()).thenReturn(-1.0);
+        put(A);
+
+        assertNull(contentStore.get(A));
+        assertEquals(1, misses.getCount());
+    }
+
+    private void put(Name name) {
+        contentStore.put(name, new EncodedData(name, new Blob(new byte[1])));
+    }
+}
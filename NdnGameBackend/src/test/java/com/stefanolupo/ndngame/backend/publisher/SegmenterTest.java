@@ -0,0 +1,47 @@
+package com.stefanolupo.ndngame.backend.publisher;
+
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.util.Blob;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SegmenterTest {
+
+    private static final Name NAME = new Name("/test/sync/1/2/3");
+
+    @Test
+    public void itShouldSplitContentIntoNamedSegments() throws Exception {
+        byte[] content = new byte[25];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        List<Data> segments = Segmenter.segment(NAME, new Blob(content), 10);
+
+        assertEquals(3, segments.size());
+        ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+        for (int i = 0; i < segments.size(); i++) {
+            Data segment = segments.get(i);
+            assertTrue(NAME.isPrefixOf(segment.getName()));
+            assertEquals(i, segment.getName().get(-1).toSegment());
+            assertEquals(2, segment.getMetaInfo().getFinalBlockId().toSegment());
+            reassembled.write(segment.getContent().getImmutableArray());
+        }
+        assertArrayEquals(content, reassembled.toByteArray());
+    }
+
+    @Test
+    public void itShouldProduceSingleSegmentForSmallContent() throws Exception {
+        List<Data> segments = Segmenter.segment(NAME, new Blob(new byte[5]), 10);
+
+        assertEquals(1, segments.size());
+        assertEquals(0, segments.get(0).getMetaInfo().getFinalBlockId().toSegment());
+    }
+}
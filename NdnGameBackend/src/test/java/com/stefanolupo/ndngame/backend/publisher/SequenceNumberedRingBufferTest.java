@@ -13,15 +13,15 @@ import java.util.List;
 import static org.junit.Assert.assertEquals;
 
 @RunWith(MockitoJUnitRunner.class)
-public class SequenceNumberedCacheTest {
+public class SequenceNumberedRingBufferTest {
 
     private static final int SIZE = 5;
 
-    private SequenceNumberedCache<Integer> cache;
+    private SequenceNumberedRingBuffer<Integer> cache;
 
     @Before
     public void setup() {
-        cache = SequenceNumberedCache.getInstance(SIZE);
+        cache = SequenceNumberedRingBuffer.getInstance(SIZE);
     }
 
     @Test
@@ -85,4 +85,27 @@ public class SequenceNumberedCacheTest {
         assertEquals(Arrays.asList(8, 9), cache.getFrom(8));
         assertEquals(Arrays.asList(9), cache.getFrom(9));
     }
+
+    @Test
+    public void itShouldOnlyVisitRequestedRange() {
+        for (int i=0; i<8; i++) {
+            cache.insert(i);
+        }
+
+        List<Integer> visited = new ArrayList<>();
+        assertEquals(3, cache.forEachInRange(4, 6, visited::add));
+        assertEquals(Arrays.asList(4, 5, 6), visited);
+    }
+
+    @Test
+    public void itShouldTrackSequenceNumbers() {
+        assertEquals(-1, cache.getMaxSequenceNumber());
+
+        for (int i=0; i<8; i++) {
+            assertEquals(i, cache.insert(i));
+        }
+
+        assertEquals(3, cache.getMinSequenceNumber());
+        assertEquals(7, cache.getMaxSequenceNumber());
+    }
 }
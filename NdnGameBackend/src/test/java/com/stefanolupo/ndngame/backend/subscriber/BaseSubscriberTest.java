@@ -0,0 +1,215 @@
+package com.stefanolupo.ndngame.backend.subscriber;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.UniformReservoir;
+import com.stefanolupo.ndngame.backend.ndn.FaceManager;
+import com.stefanolupo.ndngame.backend.subscriber.metrics.BaseSubscriberMetrics;
+import com.stefanolupo.ndngame.names.PlayerStatusName;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.NetworkNack;
+import net.named_data.jndn.OnData;
+import net.named_data.jndn.OnNetworkNack;
+import net.named_data.jndn.OnTimeout;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BaseSubscriberTest {
+
+    private static final long GAME_ID = 0;
+    private static final int WINDOW_SIZE = 3;
+    private static final long INITIAL_RTO_MS = 1000;
+    private static final long MIN_RTO_MS = 200;
+    private static final long EXPECTED_HOLD_MS = 1000;
+
+    @Mock private FaceManager faceManager;
+
+    private final List<Long> appliedVersions = new ArrayList<>();
+    private final Counter staleDataCounter = new Counter();
+    private BaseSubscriber<Long> subscriber;
+
+    @Before
+    public void setup() {
+        BaseSubscriberMetrics metrics = new BaseSubscriberMetrics(
+                new Histogram(new UniformReservoir()),
+                new Counter(),
+                staleDataCounter,
+                new Counter(),
+                new Histogram(new UniformReservoir()));
+
+        subscriber = new BaseSubscriber<>(
+                faceManager,
+                new PlayerStatusName(GAME_ID, "remote"),
+                this::applyData,
+                PlayerStatusName::new,
+                version -> 0L,
+                metrics,
+                WINDOW_SIZE,
+                new RttEstimator(INITIAL_RTO_MS, MIN_RTO_MS, 4000, EXPECTED_HOLD_MS, new Random(0)));
+    }
+
+    @Test
+    public void itShouldExpressTheWholeWindowOnceTheFirstDataArrives() {
+        reply(0, 5);
+
+        assertEquals(Arrays.asList(0L, 5L, 6L, 7L), expressedSequenceNumbers());
+    }
+
+    @Test
+    public void itShouldGiveSyncInterestsTheExpectedHoldOnTopOfTheRto() {
+        assertEquals(EXPECTED_HOLD_MS + INITIAL_RTO_MS, lastExpressedLifetimeMs(), 0);
+    }
+
+    @Test
+    public void itShouldOnlyMeasureRoundTripsForInterestsTheProducerCantHaveHeld() {
+        // Answered by the next version, which it may well have waited for
+        reply(0, 1);
+        assertEquals(EXPECTED_HOLD_MS + INITIAL_RTO_MS, lastExpressedLifetimeMs(), 0);
+
+        // The producer was already further along, so answered at once and well within the min RTO
+        reply(1, 5);
+        assertEquals(EXPECTED_HOLD_MS + MIN_RTO_MS, lastExpressedLifetimeMs(), 0);
+    }
+
+    @Test
+    public void itShouldHoldDataAheadOfAGapUntilTheGapIsFilled() {
+        reply(0, 5);
+
+        reply(6, 8);
+        assertEquals(Arrays.asList(5L), appliedVersions);
+
+        reply(5, 7);
+        assertEquals(Arrays.asList(5L, 7L, 8L), appliedVersions);
+    }
+
+    @Test
+    public void itShouldDropDataNoNewerThanWhatWasApplied() {
+        reply(0, 5);
+        reply(6, 8);
+        reply(5, 8);
+
+        assertEquals(Arrays.asList(5L, 8L), appliedVersions);
+        assertEquals(1, staleDataCounter.getCount());
+    }
+
+    @Test
+    public void itShouldBackOffOnConsecutiveTimeoutsUntilDataArrives() {
+        reply(0, 5);
+
+        timeOutWindow();
+        assertEquals(EXPECTED_HOLD_MS + 2 * MIN_RTO_MS, lastExpressedLifetimeMs(), 0);
+        timeOutWindow();
+        assertEquals(EXPECTED_HOLD_MS + 4 * MIN_RTO_MS, lastExpressedLifetimeMs(), 0);
+
+        reply(5, 6);
+        assertEquals(EXPECTED_HOLD_MS + MIN_RTO_MS, lastExpressedLifetimeMs(), 0);
+    }
+
+    @Test
+    public void itShouldBackOffOnceWhenTheWholeWindowIsNacked() {
+        reply(0, 5);
+
+        for (long sequenceNumberSeen = 5; sequenceNumberSeen < 5 + WINDOW_SIZE; sequenceNumberSeen++) {
+            subscriber.onNetworkNack(interestFor(sequenceNumberSeen), congestion());
+            subscriber.onTimeout(interestFor(sequenceNumberSeen));
+        }
+        assertEquals(Arrays.asList(0L, 5L, 6L, 7L), expressedSequenceNumbers());
+
+        ArgumentCaptor<Runnable> refill = ArgumentCaptor.forClass(Runnable.class);
+        verify(faceManager).callLater(anyLong(), refill.capture());
+        refill.getValue().run();
+
+        List<Interest> interests = expressedInterests();
+        assertEquals(Arrays.asList(0L, 5L, 6L, 7L, 5L, 6L, 7L), expressedSequenceNumbers());
+        assertEquals(EXPECTED_HOLD_MS + 2 * MIN_RTO_MS, interests.get(interests.size() - 1).getInterestLifetimeMilliseconds(), 0);
+    }
+
+    /**
+     * Times out every interest in the window and runs the one refill that should be scheduled for them
+     */
+    private void timeOutWindow() {
+        int numRefills = scheduledRefills().size();
+        for (long sequenceNumberSeen = 5; sequenceNumberSeen < 5 + WINDOW_SIZE; sequenceNumberSeen++) {
+            subscriber.onTimeout(interestFor(sequenceNumberSeen));
+        }
+
+        List<Runnable> refills = scheduledRefills();
+        assertEquals(numRefills + 1, refills.size());
+        refills.get(refills.size() - 1).run();
+    }
+
+    private List<Runnable> scheduledRefills() {
+        ArgumentCaptor<Runnable> refills = ArgumentCaptor.forClass(Runnable.class);
+        verify(faceManager, atLeast(0)).callLater(anyLong(), refills.capture());
+        return refills.getAllValues();
+    }
+
+    private double lastExpressedLifetimeMs() {
+        List<Interest> interests = expressedInterests();
+        return interests.get(interests.size() - 1).getInterestLifetimeMilliseconds();
+    }
+
+    private Long applyData(Data data) {
+        long version = new PlayerStatusName(data).getNextSequenceNumber();
+        appliedVersions.add(version);
+        return version;
+    }
+
+    private Interest interestFor(long sequenceNumberSeen) {
+        PlayerStatusName name = new PlayerStatusName(GAME_ID, "remote");
+        name.setNextSequenceNumber(sequenceNumberSeen);
+        return name.buildInterest();
+    }
+
+    private void reply(long sequenceNumberSeen, long nextSequenceNumber) {
+        Interest interest = interestFor(sequenceNumberSeen);
+
+        PlayerStatusName dataName = new PlayerStatusName(interest);
+        dataName.setNextSequenceNumber(nextSequenceNumber);
+        subscriber.onData(interest, new Data(dataName.getFullName()));
+    }
+
+    private List<Interest> expressedInterests() {
+        ArgumentCaptor<Interest> interests = ArgumentCaptor.forClass(Interest.class);
+        verify(faceManager, atLeastOnce()).expressInterestSafe(
+                interests.capture(), any(OnData.class), any(OnTimeout.class), any(OnNetworkNack.class), any(Name.class));
+        return interests.getAllValues();
+    }
+
+    private List<Long> expressedSequenceNumbers() {
+        List<Long> sequenceNumbers = new ArrayList<>();
+        for (Interest interest : expressedInterests()) {
+            sequenceNumbers.add(sequenceNumberSeen(interest));
+        }
+        return sequenceNumbers;
+    }
+
+    private static NetworkNack congestion() {
+        NetworkNack networkNack = new NetworkNack();
+        networkNack.setReason(NetworkNack.Reason.CONGESTION);
+        return networkNack;
+    }
+
+    private static long sequenceNumberSeen(Interest interest) {
+        return Long.parseLong(interest.getName().get(-1).toEscapedString());
+    }
+}
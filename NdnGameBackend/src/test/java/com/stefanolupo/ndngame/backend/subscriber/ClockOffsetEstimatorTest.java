@@ -0,0 +1,58 @@
+package com.stefanolupo.ndngame.backend.subscriber;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClockOffsetEstimatorTest {
+
+    // Producer's clock is this far behind ours
+    private static final long OFFSET_MS = 5000;
+
+    @Test
+    public void itShouldNotCorrectBeforeAnySamples() {
+        ClockOffsetEstimator estimator = new ClockOffsetEstimator(4);
+
+        assertEquals(100, estimator.toLocalTime(100));
+    }
+
+    @Test
+    public void itShouldIgnoreQueueing() {
+        ClockOffsetEstimator estimator = new ClockOffsetEstimator(4);
+
+        // 10ms each way when answered straight away
+        estimator.addRoundTripTime(20);
+        estimator.addDelay(OFFSET_MS + 10);
+        // Queued for a while on the way back
+        estimator.addDelay(OFFSET_MS + 60);
+
+        assertEquals(OFFSET_MS, estimator.getOffsetMs());
+    }
+
+    @Test
+    public void itShouldNotBeBiasedByHeldInterests() {
+        ClockOffsetEstimator estimator = new ClockOffsetEstimator(4);
+
+        // Every interest parked at the producer for ~500ms until its next update, so no round trip times
+        estimator.addDelay(OFFSET_MS + 10);
+        estimator.addDelay(OFFSET_MS + 12);
+        // Only the one way delay is left in, rather than being out by half the hold
+        assertEquals(OFFSET_MS + 10, estimator.getOffsetMs());
+
+        estimator.addRoundTripTime(20);
+        assertEquals(OFFSET_MS, estimator.getOffsetMs());
+    }
+
+    @Test
+    public void itShouldOnlyUseTheLatestSamples() {
+        ClockOffsetEstimator estimator = new ClockOffsetEstimator(2);
+
+        estimator.addRoundTripTime(20);
+        estimator.addDelay(OFFSET_MS + 10);
+        // Producer's clock was stepped back by a second
+        estimator.addDelay(OFFSET_MS + 1010);
+        estimator.addDelay(OFFSET_MS + 1010);
+
+        assertEquals(OFFSET_MS + 1000, estimator.getOffsetMs());
+    }
+}
@@ -0,0 +1,92 @@
+package com.stefanolupo.ndngame.backend.subscriber;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RttEstimatorTest {
+
+    private static final long INITIAL_RTO_MS = 1000;
+    private static final long MIN_RTO_MS = 20;
+    private static final long MAX_RTO_MS = 4000;
+    private static final long EXPECTED_HOLD_MS = 1000;
+
+    private RttEstimator estimator;
+
+    @Before
+    public void setup() {
+        estimator = new RttEstimator(INITIAL_RTO_MS, MIN_RTO_MS, MAX_RTO_MS, EXPECTED_HOLD_MS, new Random(0));
+    }
+
+    @Test
+    public void itShouldUseTheInitialLifetimeBeforeAnyMeasurement() {
+        assertEquals(INITIAL_RTO_MS, estimator.getInterestLifetimeMs());
+    }
+
+    @Test
+    public void itShouldAddTheExpectedHoldToHeldInterestLifetimes() {
+        estimator.addMeasurement(100);
+
+        assertEquals(EXPECTED_HOLD_MS + 300, estimator.getHeldInterestLifetimeMs());
+    }
+
+    @Test
+    public void itShouldFollowRfc6298ForTheFirstMeasurements() {
+        // SRTT = 100, RTTVAR = 50
+        estimator.addMeasurement(100);
+        assertEquals(300, estimator.getInterestLifetimeMs());
+
+        // RTTVAR = 3/4 * 50 + 1/4 * 100 = 62.5, SRTT = 7/8 * 100 + 1/8 * 200 = 112.5
+        estimator.addMeasurement(200);
+        assertEquals(113, estimator.getSmoothedRttMs());
+        assertEquals(363, estimator.getInterestLifetimeMs());
+    }
+
+    @Test
+    public void itShouldClampTheLifetime() {
+        estimator.addMeasurement(1);
+        assertEquals(MIN_RTO_MS, estimator.getInterestLifetimeMs());
+
+        estimator.addMeasurement(10_000);
+        assertEquals(MAX_RTO_MS, estimator.getInterestLifetimeMs());
+    }
+
+    @Test
+    public void itShouldBackOffOnNacksUntilTheNextMeasurement() {
+        estimator.addMeasurement(100);
+
+        long retransmissionDelay = estimator.onNack();
+        assertEquals(600, estimator.getInterestLifetimeMs());
+        assertTrue(retransmissionDelay > 0 && retransmissionDelay <= 600);
+
+        estimator.onNack();
+        assertEquals(1200, estimator.getInterestLifetimeMs());
+
+        for (int i = 0; i < 10; i++) {
+            estimator.onNack();
+        }
+        assertEquals(MAX_RTO_MS, estimator.getInterestLifetimeMs());
+
+        estimator.addMeasurement(100);
+        assertTrue(estimator.getInterestLifetimeMs() < 600);
+    }
+
+    @Test
+    public void itShouldBackOffOnTimeoutsUntilDataArrives() {
+        estimator.addMeasurement(100);
+
+        long retransmissionDelay = estimator.onLoss();
+        assertEquals(600, estimator.getInterestLifetimeMs());
+        assertTrue(retransmissionDelay >= 0 && retransmissionDelay <= 600);
+
+        estimator.onLoss();
+        assertEquals(1200, estimator.getInterestLifetimeMs());
+
+        estimator.resetBackOff();
+        assertEquals(300, estimator.getInterestLifetimeMs());
+    }
+}
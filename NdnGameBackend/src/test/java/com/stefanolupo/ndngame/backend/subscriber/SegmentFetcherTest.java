@@ -0,0 +1,149 @@
+package com.stefanolupo.ndngame.backend.subscriber;
+
+import com.stefanolupo.ndngame.backend.ndn.FaceManager;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.NetworkNack;
+import net.named_data.jndn.OnData;
+import net.named_data.jndn.OnNetworkNack;
+import net.named_data.jndn.OnTimeout;
+import net.named_data.jndn.encoding.EncodingException;
+import net.named_data.jndn.util.Blob;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SegmentFetcherTest {
+
+    private static final Name STREAM_NAME = new Name("/game/0/remote/blocks/sync");
+    private static final Name NAME = new Name(STREAM_NAME).append("0").append("5");
+    private static final int NUM_SEGMENTS = 5;
+    private static final int WINDOW_SIZE = 2;
+    private static final long INITIAL_RTO_MS = 1000;
+
+    @Mock private FaceManager faceManager;
+
+    private final List<Data> completed = new ArrayList<>();
+    private int numFailures = 0;
+    private SegmentFetcher fetcher;
+
+    @Before
+    public void setup() {
+        fetcher = new SegmentFetcher(
+                faceManager,
+                STREAM_NAME,
+                segment(0),
+                WINDOW_SIZE,
+                new RttEstimator(INITIAL_RTO_MS, 200, 4000, 1000, new Random(0)),
+                completed::add,
+                () -> numFailures++);
+        fetcher.start();
+    }
+
+    @Test
+    public void itShouldKeepAWindowOfSegmentInterestsInFlight() {
+        assertEquals(Arrays.asList(1L, 2L), expressedSegments());
+
+        fetcher.onData(interestFor(1), segment(1));
+        assertEquals(Arrays.asList(1L, 2L, 3L), expressedSegments());
+    }
+
+    @Test
+    public void itShouldReassembleSegmentsArrivingOutOfOrder() {
+        fetcher.onData(interestFor(2), segment(2));
+        fetcher.onData(interestFor(4), segment(4));
+        fetcher.onData(interestFor(1), segment(1));
+        assertEquals(0, completed.size());
+
+        fetcher.onData(interestFor(3), segment(3));
+
+        assertEquals(1, completed.size());
+        assertEquals(NAME, completed.get(0).getName());
+        assertEquals("01234", completed.get(0).getContent().toString());
+    }
+
+    @Test
+    public void itShouldRetryASegmentBeforeFailing() {
+        for (int i = 0; i < 3; i++) {
+            fetcher.onTimeout(interestFor(1));
+        }
+        assertEquals(Arrays.asList(1L, 2L, 1L, 1L, 1L), expressedSegments());
+        assertEquals(0, numFailures);
+
+        fetcher.onTimeout(interestFor(1));
+        assertEquals(1, numFailures);
+
+        // Nothing more once it's given up
+        fetcher.onTimeout(interestFor(2));
+        fetcher.onData(interestFor(2), segment(2));
+        assertEquals(1, numFailures);
+        assertEquals(0, completed.size());
+    }
+
+    @Test
+    public void itShouldBackOffOnceWhenTheWholeWindowIsLost() {
+        fetcher.onTimeout(interestFor(1));
+        fetcher.onTimeout(interestFor(2));
+
+        List<Interest> interests = expressedInterests();
+        assertEquals(2 * INITIAL_RTO_MS, interests.get(2).getInterestLifetimeMilliseconds(), 0);
+        assertEquals(2 * INITIAL_RTO_MS, interests.get(3).getInterestLifetimeMilliseconds(), 0);
+    }
+
+    @Test
+    public void itShouldFailStraightAwayOnANack() {
+        NetworkNack networkNack = new NetworkNack();
+        networkNack.setReason(NetworkNack.Reason.NO_ROUTE);
+
+        fetcher.onNetworkNack(interestFor(1), networkNack);
+
+        assertEquals(1, numFailures);
+        assertEquals(Arrays.asList(1L, 2L), expressedSegments());
+        assertEquals(0, completed.size());
+    }
+
+    private static Data segment(long segment) {
+        Data data = new Data(new Name(NAME).appendSegment(segment));
+        data.getMetaInfo().setFinalBlockId(Name.Component.fromSegment(NUM_SEGMENTS - 1));
+        data.setContent(new Blob(Long.toString(segment)));
+        return data;
+    }
+
+    private static Interest interestFor(long segment) {
+        return new Interest(new Name(NAME).appendSegment(segment));
+    }
+
+    private List<Interest> expressedInterests() {
+        ArgumentCaptor<Interest> interests = ArgumentCaptor.forClass(Interest.class);
+        verify(faceManager, atLeastOnce()).expressInterestSafe(
+                interests.capture(), any(OnData.class), any(OnTimeout.class), any(OnNetworkNack.class), any(Name.class));
+        return interests.getAllValues();
+    }
+
+    private List<Long> expressedSegments() {
+        List<Long> segments = new ArrayList<>();
+        for (Interest interest : expressedInterests()) {
+            try {
+                segments.add(interest.getName().get(-1).toSegment());
+            } catch (EncodingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,34 @@
+package com.stefanolupo.ndngame.deadreckoning;
+
+/**
+ * Predicts where a remote object is from the last status published for it
+ * The publisher uses this to estimate what each subscriber is showing, and subscribers use it to show it,
+ * so both agree on how far off a subscriber is
+ * Works one axis at a time with time measured in engine ticks
+ */
+public interface DeadReckoningPredictor {
+
+    /**
+     * @return short name used in config and metric names
+     */
+    String getName();
+
+    /**
+     * @param position position in the last status
+     * @param velocity velocity in the last status
+     * @param acceleration acceleration in the last status
+     * @param elapsedTicks ticks since the last status was published
+     */
+    float predictPosition(float position, float velocity, float acceleration, float elapsedTicks);
+
+    /**
+     * @return the rate of change of {@link #predictPosition} after elapsedTicks
+     */
+    float predictVelocity(float velocity, float acceleration, float elapsedTicks);
+
+    /**
+     * @return whether any change in velocity should be published regardless of the predicted error,
+     * for predictors which can't anticipate velocity changing
+     */
+    boolean requiresUpdateOnVelocityChange();
+}
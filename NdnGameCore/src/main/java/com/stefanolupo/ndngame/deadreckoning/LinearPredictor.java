@@ -0,0 +1,29 @@
+package com.stefanolupo.ndngame.deadreckoning;
+
+/**
+ * Carries on at the last published velocity
+ */
+public class LinearPredictor implements DeadReckoningPredictor {
+
+    public static final String NAME = "linear";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public float predictPosition(float position, float velocity, float acceleration, float elapsedTicks) {
+        return position + velocity * elapsedTicks;
+    }
+
+    @Override
+    public float predictVelocity(float velocity, float acceleration, float elapsedTicks) {
+        return velocity;
+    }
+
+    @Override
+    public boolean requiresUpdateOnVelocityChange() {
+        return true;
+    }
+}
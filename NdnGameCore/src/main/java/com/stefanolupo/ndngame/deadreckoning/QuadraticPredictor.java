@@ -0,0 +1,29 @@
+package com.stefanolupo.ndngame.deadreckoning;
+
+/**
+ * Carries on at the last published velocity and acceleration
+ */
+public class QuadraticPredictor implements DeadReckoningPredictor {
+
+    public static final String NAME = "quadratic";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public float predictPosition(float position, float velocity, float acceleration, float elapsedTicks) {
+        return position + velocity * elapsedTicks + 0.5f * acceleration * elapsedTicks * elapsedTicks;
+    }
+
+    @Override
+    public float predictVelocity(float velocity, float acceleration, float elapsedTicks) {
+        return velocity + acceleration * elapsedTicks;
+    }
+
+    @Override
+    public boolean requiresUpdateOnVelocityChange() {
+        return false;
+    }
+}
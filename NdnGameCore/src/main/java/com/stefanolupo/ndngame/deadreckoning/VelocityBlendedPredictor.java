@@ -0,0 +1,39 @@
+package com.stefanolupo.ndngame.deadreckoning;
+
+/**
+ * Blends from the last published velocity to the velocity it's heading for (velocity + acceleration * blendTicks)
+ * over blendTicks, then carries on linearly at that velocity
+ * Unlike the quadratic predictor a brief acceleration doesn't keep growing the error over long gaps between updates
+ */
+public class VelocityBlendedPredictor implements DeadReckoningPredictor {
+
+    public static final String NAME = "blended";
+
+    private final float blendTicks;
+
+    public VelocityBlendedPredictor(float blendTicks) {
+        this.blendTicks = blendTicks;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public float predictPosition(float position, float velocity, float acceleration, float elapsedTicks) {
+        float blendingTicks = Math.min(elapsedTicks, blendTicks);
+        float blendedPosition = position + velocity * blendingTicks + 0.5f * acceleration * blendingTicks * blendingTicks;
+        return blendedPosition + predictVelocity(velocity, acceleration, blendTicks) * (elapsedTicks - blendingTicks);
+    }
+
+    @Override
+    public float predictVelocity(float velocity, float acceleration, float elapsedTicks) {
+        return velocity + acceleration * Math.min(elapsedTicks, blendTicks);
+    }
+
+    @Override
+    public boolean requiresUpdateOnVelocityChange() {
+        return false;
+    }
+}
@@ -1,8 +1,10 @@
 package com.stefanolupo.ndngame.metrics;
 
+import com.stefanolupo.ndngame.deadreckoning.DeadReckoningPredictor;
 import com.stefanolupo.ndngame.names.BaseName;
 import com.stefanolupo.ndngame.names.PlayerStatusName;
 import net.named_data.jndn.Name;
+import net.named_data.jndn.NetworkNack;
 
 public class MetricNames {
 
@@ -27,12 +29,56 @@ public class MetricNames {
         return String.format("pub-update-percentage-%s", trimAndSanitize(listenName));
     }
 
+    public static String basePublisherDuplicateInterests(Name listenName) {
+        return String.format("pub-dup-interests-%s", trimAndSanitize(listenName));
+    }
+
+    public static String basePublisherDuplicateRatio(Name listenName) {
+        return String.format("pub-dup-ratio-%s", trimAndSanitize(listenName));
+    }
+
+    public static String pendingInterestEvictions(Name listenName) {
+        return String.format("pub-pit-evictions-%s", trimAndSanitize(listenName));
+    }
+
+    public static String pendingInterestStaleSendsAvoided(Name listenName) {
+        return String.format("pub-pit-stale-sends-avoided-%s", trimAndSanitize(listenName));
+    }
+
+    public static String producerContentStoreHits(Name listenName) {
+        return String.format("pub-cs-hits-%s", trimAndSanitize(listenName));
+    }
+
+    public static String producerContentStoreMisses(Name listenName) {
+        return String.format("pub-cs-misses-%s", trimAndSanitize(listenName));
+    }
+
+    public static String dataSenderQueueDepth() {
+        return "sender-queue-depth";
+    }
+
+    public static String dataSenderLatency() {
+        return "sender-latency";
+    }
+
+    public static String dataSenderDropped() {
+        return "sender-dropped";
+    }
+
+    public static String networkNacks(NetworkNack.Reason reason) {
+        return String.format("nack-%s", reason.name().toLowerCase());
+    }
+
     public static String playerStatusPositionDeltas(PlayerStatusName name) {
         return String.format("eng-status-delta-%s", name.getPlayerName().getName());
     }
 
-    public static String deadReckoningCounter(DeadReckoningCounters counter) {
-        return String.format("dr-counter-%s", counter.name().toLowerCase());
+    public static String playerStatusRenderStaleness(PlayerStatusName name) {
+        return String.format("eng-status-staleness-%s", name.getPlayerName().getName());
+    }
+
+    public static String deadReckoningCounter(DeadReckoningPredictor predictor, DeadReckoningCounters counter) {
+        return String.format("dr-counter-%s-%s", predictor.getName(), counter.name().toLowerCase());
     }
 
     public static String packetSizeHistogram(PacketSizeType packetSizeType) {
@@ -13,7 +13,8 @@ import java.util.regex.Pattern;
  * Schema
  * Prefix: /status
  *  - Express interest: /sync/|sequence_number|
- *  - Reply to interest: /sync/|sequence_number|/|next_sequence_number|
+ *  - Reply to interest: /sync/|sequence_number|/|next_sequence_number|/|update_timestamp|
+ *    Only depends on the update, so every consumer at |sequence_number| shares one (cacheable) packet
  */
 public class PlayerStatusName implements SequenceNumberedName {
 
@@ -62,6 +63,11 @@ public class PlayerStatusName implements SequenceNumberedName {
         this.nextSequenceNumber = nextSequenceNumber;
     }
 
+    @Override
+    public long getNextSequenceNumber() {
+        return nextSequenceNumber;
+    }
+
     /**
      * Used by subscribers to create interests for the latest sequence number
      */
@@ -8,6 +8,7 @@ public interface SequenceNumberedName {
     Interest buildInterest();
     long getLatestSequenceNumberSeen();
     void setNextSequenceNumber(long nextSequenceNumber);
+    long getNextSequenceNumber();
 
     void setUpdateTimestamp(long updateTimestamp);
     long getUpdateTimestamp();
@@ -12,7 +12,8 @@ import java.util.regex.Pattern;
 
 /** Schema: /sync/
  *      - Express: |sequence_number|
- *      - Data: |sequence_number|/\next_sequence_number|
+ *      - Data: |sequence_number|/|next_sequence_number|/|update_timestamp|
+ *        Only depends on the update, so every consumer at |sequence_number| shares one (cacheable) packet
  */
 public class BlocksSyncName
         extends BlocksName
@@ -71,6 +72,11 @@ public class BlocksSyncName
         this.nextSequenceNumber = nextSequenceNumber;
     }
 
+    @Override
+    public long getNextSequenceNumber() {
+        return nextSequenceNumber;
+    }
+
     @Override
     public long getUpdateTimestamp() {
         return sentTimestamp;
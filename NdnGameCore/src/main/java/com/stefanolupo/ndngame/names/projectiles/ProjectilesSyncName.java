@@ -78,6 +78,11 @@ public class ProjectilesSyncName
         this.nextSequenceNumber = nextSequenceNumber;
     }
 
+    @Override
+    public long getNextSequenceNumber() {
+        return nextSequenceNumber;
+    }
+
     @Override
     public void setUpdateTimestamp(long updateTimestamp) {
         this.sentTimestamp = updateTimestamp;
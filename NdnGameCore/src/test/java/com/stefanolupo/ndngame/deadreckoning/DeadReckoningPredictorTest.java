@@ -0,0 +1,41 @@
+package com.stefanolupo.ndngame.deadreckoning;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeadReckoningPredictorTest {
+
+    private static final float DELTA = 1e-4f;
+
+    @Test
+    public void itShouldIgnoreAccelerationWhenLinear() {
+        DeadReckoningPredictor predictor = new LinearPredictor();
+
+        assertEquals(12f, predictor.predictPosition(2, 1, 5, 10), DELTA);
+        assertEquals(1f, predictor.predictVelocity(1, 5, 10), DELTA);
+    }
+
+    @Test
+    public void itShouldKeepAcceleratingWhenQuadratic() {
+        DeadReckoningPredictor predictor = new QuadraticPredictor();
+
+        assertEquals(2 + 10 + 0.5f * 2 * 100, predictor.predictPosition(2, 1, 2, 10), DELTA);
+        assertEquals(21f, predictor.predictVelocity(1, 2, 10), DELTA);
+    }
+
+    @Test
+    public void itShouldOnlyAccelerateForTheBlendTicksWhenBlended() {
+        DeadReckoningPredictor predictor = new VelocityBlendedPredictor(4);
+        QuadraticPredictor quadratic = new QuadraticPredictor();
+
+        // Matches the quadratic predictor while blending
+        assertEquals(quadratic.predictPosition(2, 1, 2, 3), predictor.predictPosition(2, 1, 2, 3), DELTA);
+
+        // Then carries on at the blended velocity
+        float blendedVelocity = 1 + 2 * 4;
+        float positionAfterBlend = quadratic.predictPosition(2, 1, 2, 4);
+        assertEquals(blendedVelocity, predictor.predictVelocity(1, 2, 10), DELTA);
+        assertEquals(positionAfterBlend + blendedVelocity * 6, predictor.predictPosition(2, 1, 2, 10), DELTA);
+    }
+}
@@ -18,6 +18,7 @@ import com.stefanolupo.ndngame.libgdx.listeners.AttackListener;
 import com.stefanolupo.ndngame.libgdx.systems.BlockSystem;
 import com.stefanolupo.ndngame.libgdx.systems.PlayerControlSystem;
 import com.stefanolupo.ndngame.libgdx.systems.core.*;
+import com.stefanolupo.ndngame.libgdx.systems.local.LocalBlockPublishSystem;
 import com.stefanolupo.ndngame.libgdx.systems.local.LocalPlayerStatusSystem;
 import com.stefanolupo.ndngame.libgdx.systems.remote.AttackSystem;
 import com.stefanolupo.ndngame.libgdx.systems.remote.BlockUpdateSystem;
@@ -43,6 +44,7 @@ public class MainScreen implements Screen {
     private final AttackSystem attackSystem;
     private final BlockSystem blockSystem;
     private final BlockUpdateSystem blockUpdateSystem;
+    private final LocalBlockPublishSystem localBlockPublishSystem;
     private final LocalPlayerStatusSystem localPlayerStatusSystem;
     private final MovementSystem movementSystem;
     private final PhysicsSystem physicsSystem;
@@ -74,6 +76,7 @@ public class MainScreen implements Screen {
                       AttackSystem attackSystem,
                       BlockSystem blockSystem,
                       BlockUpdateSystem blockUpdateSystem,
+                      LocalBlockPublishSystem localBlockPublishSystem,
                       LocalPlayerStatusSystem localPlayerStatusSystem,
                       MovementSystem movementSystem,
                       PhysicsSystem physicsSystem,
@@ -100,6 +103,7 @@ public class MainScreen implements Screen {
         this.attackSystem = attackSystem;
         this.blockSystem = blockSystem;
         this.blockUpdateSystem = blockUpdateSystem;
+        this.localBlockPublishSystem = localBlockPublishSystem;
         this.localPlayerStatusSystem = localPlayerStatusSystem;
 
         this.movementSystem = movementSystem;
@@ -158,6 +162,7 @@ public class MainScreen implements Screen {
 
         // Local publisher systems
         engine.addSystem(localPlayerStatusSystem);
+        engine.addSystem(localBlockPublishSystem);
 
         // Listeners
         engine.addEntityListener(AttackListener.FAMILY, attackListener);
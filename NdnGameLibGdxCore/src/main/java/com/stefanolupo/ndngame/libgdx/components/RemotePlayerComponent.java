@@ -2,6 +2,7 @@ package com.stefanolupo.ndngame.libgdx.components;
 
 import com.badlogic.ashley.core.Component;
 import com.stefanolupo.ndngame.names.PlayerStatusName;
+import com.stefanolupo.ndngame.protos.GameObject;
 
 //import com.stefanolupo.ndngame.names.AttackName;
 
@@ -10,6 +11,10 @@ public class RemotePlayerComponent implements Component {
     private PlayerStatusName playerStatusName;
     private long latestVersionSeen = 0;
 
+    // The latest status's game object and when it was applied, which are dead reckoned from until the next one
+    private GameObject deadReckoningBasis;
+    private long deadReckoningBasisAtMs;
+
     public PlayerStatusName getPlayerStatusName() {
         return playerStatusName;
     }
@@ -25,4 +30,17 @@ public class RemotePlayerComponent implements Component {
     public void setLatestVersionSeen(long latestVersionSeen) {
         this.latestVersionSeen = latestVersionSeen;
     }
+
+    public GameObject getDeadReckoningBasis() {
+        return deadReckoningBasis;
+    }
+
+    public long getDeadReckoningBasisAtMs() {
+        return deadReckoningBasisAtMs;
+    }
+
+    public void setDeadReckoningBasis(GameObject deadReckoningBasis, long deadReckoningBasisAtMs) {
+        this.deadReckoningBasis = deadReckoningBasis;
+        this.deadReckoningBasisAtMs = deadReckoningBasisAtMs;
+    }
 }
@@ -0,0 +1,24 @@
+package com.stefanolupo.ndngame.libgdx.systems.local;
+
+import com.badlogic.ashley.core.EntitySystem;
+import com.google.inject.Inject;
+import com.stefanolupo.ndngame.backend.publisher.BlockPublisher;
+
+/**
+ * Publishes the block changes made during this engine update as a single version
+ * Should run after every system which changes blocks
+ */
+public class LocalBlockPublishSystem extends EntitySystem {
+
+    private final BlockPublisher blockPublisher;
+
+    @Inject
+    public LocalBlockPublishSystem(BlockPublisher blockPublisher) {
+        this.blockPublisher = blockPublisher;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        blockPublisher.flushPendingUpdates();
+    }
+}
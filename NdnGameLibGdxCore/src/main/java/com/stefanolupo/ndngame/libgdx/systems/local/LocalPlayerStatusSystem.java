@@ -12,18 +12,21 @@ import com.stefanolupo.ndngame.backend.annotations.BackendMetrics;
 import com.stefanolupo.ndngame.backend.annotations.LogScheduleExecutor;
 import com.stefanolupo.ndngame.backend.publisher.PlayerStatusPublisher;
 import com.stefanolupo.ndngame.config.LocalConfig;
+import com.stefanolupo.ndngame.deadreckoning.DeadReckoningPredictor;
 import com.stefanolupo.ndngame.libgdx.components.LocalPlayerComponent;
 import com.stefanolupo.ndngame.libgdx.converters.PlayerStatusConverter;
 import com.stefanolupo.ndngame.libgdx.systems.HasComponentMappers;
 import com.stefanolupo.ndngame.metrics.MetricNames;
 import com.stefanolupo.ndngame.protos.GameObject;
+import com.stefanolupo.ndngame.protos.PlayerStatus;
 import com.stefanolupo.ndngame.util.MathUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.util.Arrays;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
 
 /**
  * Pushes updates to Player Status from engine to PlayerStatusPublisher
@@ -41,12 +44,29 @@ public class LocalPlayerStatusSystem
     private final Counter skipCounter;
 
     private final PlayerStatusPublisher playerStatusPublisher;
+    private final DeadReckoningPredictor predictor;
     private final float ticksPerMs;
     private final Value<Boolean> useDeadReckoning;
     private final Value<Float> maxDeadReckoningError;
 
+    // Created once and pointed at the current tick's player so dead reckoning doesn't allocate per tick
+    private final LongPredicate deadReckoningCheck = this::checkSequenceNumberSeen;
+    private GameObject playerCurrentGameObject;
+
+    // Sequence numbers last seen by consumers which need an update this tick, in ascending order
+    private long[] sequenceNumbersToUpdate = new long[16];
+    private int numSequenceNumbersToUpdate = 0;
+
+    // Velocity at the previous interval, used to estimate the acceleration published for dead reckoning
+    private float lastVelX = 0;
+    private float lastVelY = 0;
+    private long lastVelocityAtMs = -1;
+    private float accX = 0;
+    private float accY = 0;
+
     @Inject
     public LocalPlayerStatusSystem(PlayerStatusPublisher playerStatusPublisher,
+                                   DeadReckoningPredictor predictor,
                                    LocalConfig localConfig,
                                    @BackendMetrics MetricRegistry metrics,
                                    @LogScheduleExecutor ScheduledExecutorService executorService,
@@ -55,14 +75,15 @@ public class LocalPlayerStatusSystem
                                    @Named("local.player.status.updates.per.sec") Value<Float> updatesPerSecond) {
         super(1 / updatesPerSecond.get());
         this.playerStatusPublisher = playerStatusPublisher;
+        this.predictor = predictor;
         this.ticksPerMs = localConfig.getTargetFrameRate() / 1000f;
         this.useDeadReckoning = useDeadReckoning;
         this.maxDeadReckoningError = maxDeadReckoningError;
 
-        this.nullCounter = metrics.counter(MetricNames.deadReckoningCounter(MetricNames.DeadReckoningCounters.NULL));
-        this.velCounter = metrics.counter(MetricNames.deadReckoningCounter(MetricNames.DeadReckoningCounters.VELOCITY));
-        this.thresholdCounter = metrics.counter(MetricNames.deadReckoningCounter(MetricNames.DeadReckoningCounters.THRESHOLD));
-        this.skipCounter = metrics.counter(MetricNames.deadReckoningCounter(MetricNames.DeadReckoningCounters.SKIP));
+        this.nullCounter = metrics.counter(MetricNames.deadReckoningCounter(predictor, MetricNames.DeadReckoningCounters.NULL));
+        this.velCounter = metrics.counter(MetricNames.deadReckoningCounter(predictor, MetricNames.DeadReckoningCounters.VELOCITY));
+        this.thresholdCounter = metrics.counter(MetricNames.deadReckoningCounter(predictor, MetricNames.DeadReckoningCounters.THRESHOLD));
+        this.skipCounter = metrics.counter(MetricNames.deadReckoningCounter(predictor, MetricNames.DeadReckoningCounters.SKIP));
 
         if (useDeadReckoning.get()) {
             executorService.scheduleAtFixedRate(this::logStats, 0, 10, TimeUnit.SECONDS);
@@ -72,9 +93,10 @@ public class LocalPlayerStatusSystem
     @Override
     protected void updateInterval() {
         Entity playerEntity = getEngine().getEntitiesFor(Family.all(LocalPlayerComponent.class).get()).get(0);
+        updateAcceleration(RENDER_MAPPER.get(playerEntity).getGameObject());
 
         if (!useDeadReckoning.get()) {
-            playerStatusPublisher.updateLocalPlayerStatus(PlayerStatusConverter.protoFromEntity(playerEntity));
+            playerStatusPublisher.updateLocalPlayerStatus(buildPlayerStatus(playerEntity));
             return;
         }
 
@@ -85,60 +107,103 @@ public class LocalPlayerStatusSystem
      * Determine whether or not to publish a player update based on the deadreckoned position of the
      * local player on subscribers' machines
      *
-     *  This currently just produces a player update for everyone to consume or doesn't produce one at all
-     *  Possible enhancement is to do it on a per player basis
+     * Each subscriber is judged on the status it last saw, and an update is only sent to those
+     * whose dead reckoned position has drifted too far, the rest keep waiting on the status they have
      */
     private void deadReckoningUpdate(Entity playerEntity) {
-        GameObject playerCurrentGameObject = RENDER_MAPPER.get(playerEntity).getGameObject();
-        List<PlayerStatusPublisher.PlayerStatusWithTime> statusForCurrentSeqNoOfInterest =
-                playerStatusPublisher.getPlayerStatusesForOutstandingInterests();
-        for (PlayerStatusPublisher.PlayerStatusWithTime statusWithTime : statusForCurrentSeqNoOfInterest) {
-
-            // If we don't have this sequence number version cached any more
-            // Always produce an update
-            // TODO: This means a laggy client requesting old SN which are no longer cached
-            // will cause everyone to get more updates
-            if (statusWithTime == null) {
-                updateLocalPlayer(playerEntity);
-                nullCounter.inc();
-                return;
-            }
+        playerCurrentGameObject = RENDER_MAPPER.get(playerEntity).getGameObject();
+        numSequenceNumbersToUpdate = 0;
+        playerStatusPublisher.forEachOutstandingSequenceNumberSeen(deadReckoningCheck);
+        if (numSequenceNumbersToUpdate == 0) {
+            return;
+        }
 
-            // On changing velocity just push out an update
-            // Currently NOT lerping velocities, so this is basically a direction change
-            GameObject remoteVersion = statusWithTime.playerStatus.getGameObject();
-            if (remoteVersion.getVelX() != playerCurrentGameObject.getVelX() ||
-                    remoteVersion.getVelY() != playerCurrentGameObject.getVelY()) {
-                updateLocalPlayer(playerEntity);
-                velCounter.inc();
-                return;
-            }
+        // The publisher keeps testing consumers against these from its own threads, so each publish gets its own copy
+        playerStatusPublisher.updateLocalPlayerStatus(
+                buildPlayerStatus(playerEntity),
+                new SequenceNumberSet(Arrays.copyOf(sequenceNumbersToUpdate, numSequenceNumbersToUpdate)));
+    }
 
-            // Finally, compute the approx dead reckoned position and publish update if its over the threshold
-            double distanceBetween = computeDeadReckoningDistance(statusWithTime, playerCurrentGameObject);
-            if (distanceBetween > maxDeadReckoningError.get()) {
-                thresholdCounter.inc();
-                playerStatusPublisher.updateLocalPlayerStatus(PlayerStatusConverter.protoFromEntity(playerEntity));
-            } else {
-                skipCounter.inc();
+    private boolean checkSequenceNumberSeen(long sequenceNumber) {
+        if (needsUpdate(sequenceNumber)) {
+            if (numSequenceNumbersToUpdate == sequenceNumbersToUpdate.length) {
+                sequenceNumbersToUpdate = Arrays.copyOf(sequenceNumbersToUpdate, 2 * numSequenceNumbersToUpdate);
             }
+            sequenceNumbersToUpdate[numSequenceNumbersToUpdate++] = sequenceNumber;
         }
+
+        return true;
     }
 
-    private double computeDeadReckoningDistance(PlayerStatusPublisher.PlayerStatusWithTime statusWithTime,
+    /**
+     * @return whether a subscriber which last saw sequenceNumber needs an update
+     */
+    private boolean needsUpdate(long sequenceNumber) {
+        PlayerStatus remoteStatus = playerStatusPublisher.getStatus(sequenceNumber);
+
+        // If we don't have this sequence number version cached any more always update this subscriber
+        if (remoteStatus == null) {
+            nullCounter.inc();
+            return true;
+        }
+
+        // On changing velocity just push out an update if the predictor can't anticipate it
+        // e.g. the linear predictor doesn't lerp velocities, so this is basically a direction change
+        GameObject remoteVersion = remoteStatus.getGameObject();
+        if (predictor.requiresUpdateOnVelocityChange() &&
+                (remoteVersion.getVelX() != playerCurrentGameObject.getVelX() ||
+                remoteVersion.getVelY() != playerCurrentGameObject.getVelY())) {
+            velCounter.inc();
+            return true;
+        }
+
+        // Finally, compute the approx dead reckoned position and update if its over the threshold
+        long publishedAtMs = playerStatusPublisher.getPublishedAtMs(sequenceNumber);
+        double distanceBetween = computeDeadReckoningDistance(remoteVersion, publishedAtMs, playerCurrentGameObject);
+        if (distanceBetween > maxDeadReckoningError.get()) {
+            thresholdCounter.inc();
+            return true;
+        }
+
+        skipCounter.inc();
+        return false;
+    }
+
+    private double computeDeadReckoningDistance(GameObject remoteVersion,
+                                                long publishedAtMs,
                                                 GameObject playerCurrentGameObject) {
-        GameObject remoteVersion = statusWithTime.playerStatus.getGameObject();
-        long delta = System.currentTimeMillis() - statusWithTime.timeStamp;
+        long delta = System.currentTimeMillis() - publishedAtMs;
         float ellapsedTicks = delta * ticksPerMs;
-        float approxX = remoteVersion.getX() + ellapsedTicks*remoteVersion.getVelX();
-        float approxY = remoteVersion.getY() + ellapsedTicks*remoteVersion.getVelY();
+        float approxX = predictor.predictPosition(remoteVersion.getX(), remoteVersion.getVelX(), remoteVersion.getAccX(), ellapsedTicks);
+        float approxY = predictor.predictPosition(remoteVersion.getY(), remoteVersion.getVelY(), remoteVersion.getAccY(), ellapsedTicks);
         return MathUtils.distanceBetween(
                 playerCurrentGameObject.getX(), playerCurrentGameObject.getY(),
                 approxX, approxY);
     }
 
-    private void updateLocalPlayer(Entity playerEntity) {
-        playerStatusPublisher.updateLocalPlayerStatus(PlayerStatusConverter.protoFromEntity(playerEntity));
+    /**
+     * Estimate acceleration per tick from the change in velocity since the previous interval
+     */
+    private void updateAcceleration(GameObject gameObject) {
+        long now = System.currentTimeMillis();
+        float elapsedTicks = (now - lastVelocityAtMs) * ticksPerMs;
+        if (lastVelocityAtMs >= 0 && elapsedTicks > 0) {
+            accX = (gameObject.getVelX() - lastVelX) / elapsedTicks;
+            accY = (gameObject.getVelY() - lastVelY) / elapsedTicks;
+        }
+
+        lastVelX = gameObject.getVelX();
+        lastVelY = gameObject.getVelY();
+        lastVelocityAtMs = now;
+    }
+
+    private PlayerStatus buildPlayerStatus(Entity playerEntity) {
+        PlayerStatus playerStatus = PlayerStatusConverter.protoFromEntity(playerEntity);
+        return playerStatus.toBuilder()
+                .setGameObject(playerStatus.getGameObject().toBuilder()
+                        .setAccX(accX)
+                        .setAccY(accY))
+                .build();
     }
 
     private void logStats() {
@@ -152,5 +217,24 @@ public class LocalPlayerStatusSystem
                 (total - skipCount + 0f) / total);
     }
 
+    /**
+     * Sequence numbers a status was published for, which the publisher tests consumers against
+     */
+    private static final class SequenceNumberSet implements LongPredicate {
+        private final long[] sequenceNumbers;
+
+        /**
+         * @param sequenceNumbers in ascending order, not to be modified afterwards
+         */
+        SequenceNumberSet(long[] sequenceNumbers) {
+            this.sequenceNumbers = sequenceNumbers;
+        }
+
+        @Override
+        public boolean test(long sequenceNumber) {
+            return Arrays.binarySearch(sequenceNumbers, sequenceNumber) >= 0;
+        }
+    }
+
 
 }
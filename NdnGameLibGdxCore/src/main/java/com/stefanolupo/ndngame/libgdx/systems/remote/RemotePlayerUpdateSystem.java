@@ -8,6 +8,8 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.stefanolupo.ndngame.backend.annotations.BackendMetrics;
 import com.stefanolupo.ndngame.backend.subscriber.PlayerStatusSubscriber;
+import com.stefanolupo.ndngame.config.LocalConfig;
+import com.stefanolupo.ndngame.deadreckoning.DeadReckoningPredictor;
 import com.stefanolupo.ndngame.libgdx.components.RemotePlayerComponent;
 import com.stefanolupo.ndngame.libgdx.converters.PlayerStatusConverter;
 import com.stefanolupo.ndngame.libgdx.systems.HasComponentMappers;
@@ -39,14 +41,21 @@ public class RemotePlayerUpdateSystem
     private static long numberOfNonUpdates = 0;
 
     private final PlayerStatusSubscriber playerStatusSubscriber;
+    private final DeadReckoningPredictor predictor;
+    private final float ticksPerMs;
     private final MetricRegistry metrics;
     private final Map<PlayerStatusName, Histogram> playerStatusHistograms = new HashMap<>();
+    private final Map<PlayerStatusName, Histogram> renderStalenessHistograms = new HashMap<>();
 
     @Inject
     public RemotePlayerUpdateSystem(PlayerStatusSubscriber playerStatusSubscriber,
+                                    DeadReckoningPredictor predictor,
+                                    LocalConfig localConfig,
                                     @BackendMetrics MetricRegistry metrics) {
         super(Family.all(RemotePlayerComponent.class).get());
         this.playerStatusSubscriber = playerStatusSubscriber;
+        this.predictor = predictor;
+        this.ticksPerMs = localConfig.getTargetFrameRate() / 1000f;
         this.metrics = metrics;
 //        runLogStats();
     }
@@ -55,6 +64,7 @@ public class RemotePlayerUpdateSystem
     protected void processEntity(Entity entity, float deltaTime) {
 
         handleStatusUpdate(entity, deltaTime);
+        captureRenderStalenessMetrics(REMOTE_PLAYER_MAPPER.get(entity).getPlayerStatusName());
         numberOfRemoteUpdates++;
     }
 
@@ -67,12 +77,33 @@ public class RemotePlayerUpdateSystem
 
         if (latestVersionForPlayer <= remotePlayerComponent.getLatestVersionSeen()) {
             numberOfNonUpdates++;
+            deadReckon(entity, remotePlayerComponent);
             return;
         }
 
         PlayerStatus latestStatus = playerStatusSubscriber.getLatestStatusForPlayer(playerStatusName);
         capturePositionDeltaMetrics(playerStatusName, latestStatus, entity);
         PlayerStatusConverter.reconcileRemotePlayer(entity, latestStatus, latestVersionForPlayer, deltaTime);
+        remotePlayerComponent.setDeadReckoningBasis(latestStatus.getGameObject(), System.currentTimeMillis());
+    }
+
+    /**
+     * Steer the remote player along the path the publisher's predictor expects between updates
+     * The body carries on at the last velocity by itself, so this only needs to step in when the predictor
+     * expects the velocity to change, leaving collisions to the physics engine otherwise
+     */
+    private void deadReckon(Entity entity, RemotePlayerComponent remotePlayerComponent) {
+        GameObject basis = remotePlayerComponent.getDeadReckoningBasis();
+        if (basis == null) {
+            return;
+        }
+
+        float elapsedTicks = (System.currentTimeMillis() - remotePlayerComponent.getDeadReckoningBasisAtMs()) * ticksPerMs;
+        float velX = predictor.predictVelocity(basis.getVelX(), basis.getAccX(), elapsedTicks);
+        float velY = predictor.predictVelocity(basis.getVelY(), basis.getAccY(), elapsedTicks);
+        if (velX != basis.getVelX() || velY != basis.getVelY()) {
+            BODY_MAPPER.get(entity).getBody().setLinearVelocity(velX, velY);
+        }
     }
 
     private void handleAttackUpdate(RemotePlayerComponent remotePlayerComponent) {
@@ -121,6 +152,20 @@ public class RemotePlayerUpdateSystem
         playerStatusHistogram.update(distanceBetweenInHundreths);
     }
 
+    /**
+     * How old the update the remote player is being drawn from is, dead reckoned or not
+     */
+    private void captureRenderStalenessMetrics(PlayerStatusName name) {
+        long updateTimeMs = playerStatusSubscriber.getLatestUpdateTimeForPlayer(name);
+        if (updateTimeMs < 0) {
+            return;
+        }
+
+        Histogram renderStaleness = renderStalenessHistograms.computeIfAbsent(name,
+                n -> metrics.histogram(MetricNames.playerStatusRenderStaleness(n)));
+        renderStaleness.update(System.currentTimeMillis() - updateTimeMs);
+    }
+
     private void logStats() {
         LOG.debug("{} remote updates, {} non updates = {}%",
                 numberOfRemoteUpdates, numberOfNonUpdates,